@@ -0,0 +1,72 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import org.drinkless.tdlib.TdApi;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CoreUpdateHandler#onResult} on the TDLib thread: lookup of listeners and invocation in caller thread mode.
+ * Run with {@code -prof gc} to check that the dispatch doesn't allocate.
+ *
+ * @author Pavel Vorobyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoreUpdateHandlerBenchmark {
+
+    private final TdApi.Object newMessage = new TdApi.UpdateNewMessage();
+
+    private final TdApi.Object chatTitle = new TdApi.UpdateChatTitle();
+
+    private final TdApi.Object unhandled = new TdApi.UpdateOption();
+
+    private CoreUpdateHandler coreUpdateHandler;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        coreUpdateHandler = new CoreUpdateHandler(List.of(
+                listener(TdApi.UpdateNewMessage.class, blackhole),
+                listener(TdApi.UpdateChatTitle.class, blackhole),
+                listener(TdApi.UpdateChatTitle.class, blackhole),
+                listener(TdApi.UpdateChatTitle.class, blackhole)
+        ), blackhole::consume);
+    }
+
+    @Benchmark
+    public void singleListener() {
+        coreUpdateHandler.onResult(newMessage);
+    }
+
+    @Benchmark
+    public void threeListeners() {
+        coreUpdateHandler.onResult(chatTitle);
+    }
+
+    @Benchmark
+    public void defaultHandler() {
+        coreUpdateHandler.onResult(unhandled);
+    }
+
+    private static <T extends TdApi.Update> UpdateNotificationListener<T> listener(Class<T> type, Blackhole blackhole) {
+        return new UpdateNotificationListener<>() {
+            @Override
+            public void handleNotification(T notification) {
+                blackhole.consume(notification);
+            }
+
+            @Override
+            public Class<T> notificationType() {
+                return type;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,64 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Wake-up latency of the blocking {@link TelegramClient#send} path: the caller parked on the result future
+ * against the previous 5 ms sleep-polling, with a separate "TDLib thread" answering after a short round trip.
+ *
+ * @author Pavel Vorobyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendLatencyBenchmark {
+
+    private static final long ROUND_TRIP_MICROS = 200;
+
+    private ScheduledExecutorService tdlibThread;
+
+    @Setup
+    public void setUp() {
+        tdlibThread = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        tdlibThread.shutdownNow();
+    }
+
+    @Benchmark
+    public TdApi.Object handoff() {
+        var result = new CompletableFuture<TdApi.Object>();
+        tdlibThread.schedule(() -> result.complete(new TdApi.Ok()), ROUND_TRIP_MICROS, TimeUnit.MICROSECONDS);
+        return TelegramClient.awaitResult(result);
+    }
+
+    /*
+     * Previous implementation of the blocking path.
+     */
+    @Benchmark
+    public TdApi.Object polling() throws InterruptedException {
+        var ref = new AtomicReference<TdApi.Object>();
+        tdlibThread.schedule(() -> ref.set(new TdApi.Ok()), ROUND_TRIP_MICROS, TimeUnit.MICROSECONDS);
+        var sent = Instant.now();
+        while (ref.get() == null &&
+                sent.plus(30, ChronoUnit.SECONDS).isAfter(Instant.now())) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return ref.get();
+    }
+
+}
@@ -0,0 +1,86 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationStateImpl;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.FakeTransport;
+import org.drinkless.tdlib.TdApi;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of {@link TelegramClient#send}, {@link TelegramClient#sendAsync} and {@link TelegramClient#sendAll}
+ * through the receive loop of {@link org.drinkless.tdlib.Client}, with the fake transport answering immediately.
+ * Run with {@code -prof gc} for the allocation rate.
+ *
+ * @author Pavel Vorobyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelegramClientBenchmark {
+
+    private static final TdApi.OptionValue VERSION = new TdApi.OptionValueString("1.8.0");
+
+    private static final int BATCH = 100;
+
+    private final TdApi.GetOption query = new TdApi.GetOption("version");
+
+    private final List<TdApi.GetOption> batch = Collections.nCopies(BATCH, query);
+
+    private TelegramClient telegramClient;
+
+    @Setup
+    public void setUp() {
+        FakeTransport.install(function -> VERSION);
+        telegramClient = new TelegramClient(properties(), List.of(), object -> {}, new ClientAuthorizationStateImpl());
+    }
+
+    @Benchmark
+    public Response<TdApi.OptionValue> send() {
+        return telegramClient.send(query);
+    }
+
+    @Benchmark
+    public Response<TdApi.OptionValue> sendAsync() {
+        return telegramClient.sendAsync(query).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Response<TdApi.OptionValue>> sendAsyncEach() {
+        var futures = new ArrayList<CompletableFuture<Response<TdApi.OptionValue>>>(BATCH);
+        for (TdApi.GetOption option : batch) {
+            futures.add(telegramClient.sendAsync(option));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Response<TdApi.OptionValue>> sendAll() {
+        return telegramClient.sendAll(batch).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Response<TdApi.OptionValue> sendConcurrently() {
+        return telegramClient.send(query);
+    }
+
+    static TelegramProperties properties() {
+        return new TelegramProperties(false, "tdlib", "tdlib", "key",
+                false, false, false, false,
+                1, "hash", "+10000000000", "en", "benchmark", "1.0", "1.0",
+                1, null, null, null, null, null, null, null, null, null, null);
+    }
+
+}
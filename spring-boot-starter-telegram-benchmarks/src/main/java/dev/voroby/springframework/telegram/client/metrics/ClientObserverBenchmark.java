@@ -0,0 +1,45 @@
+package dev.voroby.springframework.telegram.client.metrics;
+
+import dev.voroby.springframework.telegram.client.TelegramClientObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.drinkless.tdlib.TdApi;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the observer per query result and incoming update: no-op against Micrometer metrics.
+ *
+ * @author Pavel Vorobyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientObserverBenchmark {
+
+    private final TdApi.Function<?> query = new TdApi.GetChat(1);
+
+    private final TdApi.Object result = new TdApi.Chat();
+
+    private final TdApi.Object update = new TdApi.UpdateNewChat();
+
+    private final TelegramClientObserver noop = TelegramClientObserver.NOOP;
+
+    private final TelegramClientObserver micrometer = new MicrometerClientObserver(new SimpleMeterRegistry());
+
+    @Benchmark
+    public void noop() {
+        noop.onResult(query, result, 1000);
+        noop.onUpdate(update);
+    }
+
+    @Benchmark
+    public void micrometer() {
+        micrometer.onResult(query, result, 1000);
+        micrometer.onUpdate(update);
+    }
+
+}
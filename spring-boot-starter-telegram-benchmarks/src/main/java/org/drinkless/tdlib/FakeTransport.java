@@ -0,0 +1,164 @@
+package org.drinkless.tdlib;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Fake TDLib transport for benchmarks. Queries are answered immediately through a preallocated ring of events,
+ * which the {@link Client} receive loop reads like events of the native client, so the fake itself doesn't allocate.
+ *
+ * @author Pavel Vorobyev
+ */
+public final class FakeTransport implements Client.Transport {
+
+    private static final int CAPACITY = 1 << 16;
+
+    private static final TdApi.Ok OK = new TdApi.Ok();
+
+    private final int[] clientIds = new int[CAPACITY];
+
+    private final long[] eventIds = new long[CAPACITY];
+
+    private final TdApi.Object[] events = new TdApi.Object[CAPACITY];
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Function<TdApi.Function, TdApi.Object> answers;
+
+    private final boolean answer;
+
+    private int head;
+
+    private int size;
+
+    private int clientCount;
+
+    private FakeTransport(Function<TdApi.Function, TdApi.Object> answers, boolean answer) {
+        this.answers = answers;
+        this.answer = answer;
+    }
+
+    /**
+     * Installs the fake transport answering every query with {@link TdApi.Ok}.
+     * Must be called before the first {@link Client} is created.
+     *
+     * @return installed transport
+     */
+    public static FakeTransport install() {
+        return install(function -> OK);
+    }
+
+    /**
+     * Installs the fake transport. Must be called before the first {@link Client} is created.
+     *
+     * @param answers results of queries
+     * @return installed transport
+     */
+    public static FakeTransport install(Function<TdApi.Function, TdApi.Object> answers) {
+        var transport = new FakeTransport(answers, true);
+        Client.setTransport(transport);
+        return transport;
+    }
+
+    /**
+     * Installs the fake transport which never answers, results are passed to the receiver by the benchmark.
+     *
+     * @return installed transport
+     */
+    public static FakeTransport installSilent() {
+        var transport = new FakeTransport(function -> OK, false);
+        Client.setTransport(transport);
+        return transport;
+    }
+
+    /**
+     * Emits an update as if it was received from TDLib.
+     *
+     * @param nativeClientId identifier of the client
+     * @param update update
+     */
+    public void emit(int nativeClientId, TdApi.Object update) {
+        offer(nativeClientId, 0, update);
+    }
+
+    @Override
+    public int createClient() {
+        lock.lock();
+        try {
+            return ++clientCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void send(int nativeClientId, long eventId, TdApi.Function function) {
+        if (answer) {
+            offer(nativeClientId, eventId, answers.apply(function));
+        }
+    }
+
+    private void offer(int nativeClientId, long eventId, TdApi.Object event) {
+        lock.lock();
+        try {
+            while (size == CAPACITY) {
+                notFull.awaitUninterruptibly();
+            }
+            int tail = (head + size) & (CAPACITY - 1);
+            clientIds[tail] = nativeClientId;
+            eventIds[tail] = eventId;
+            events[tail] = event;
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int receive(int[] clientIds, long[] eventIds, TdApi.Object[] events, double timeout) {
+        lock.lock();
+        try {
+            long nanos = (long) (timeout * TimeUnit.SECONDS.toNanos(1));
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(size, events.length);
+            for (int i = 0; i < n; i++) {
+                int index = (head + i) & (CAPACITY - 1);
+                clientIds[i] = this.clientIds[index];
+                eventIds[i] = this.eventIds[index];
+                events[i] = this.events[index];
+                this.events[index] = null;
+            }
+            head = (head + n) & (CAPACITY - 1);
+            size -= n;
+            notFull.signalAll();
+            return n;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public TdApi.Object execute(TdApi.Function function) {
+        return answers.apply(function);
+    }
+
+    @Override
+    public void setLogMessageHandler(int maxVerbosityLevel, Client.LogMessageHandler logMessageHandler) {
+    }
+
+}
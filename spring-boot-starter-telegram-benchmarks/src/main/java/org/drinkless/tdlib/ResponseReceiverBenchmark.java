@@ -0,0 +1,55 @@
+package org.drinkless.tdlib;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Client.ResponseReceiver.processResult} for query results and updates.
+ * The fake transport doesn't answer, so results are passed to the receiver by the benchmark thread.
+ *
+ * @author Pavel Vorobyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseReceiverBenchmark {
+
+    private final TdApi.Object result = new TdApi.Ok();
+
+    private final TdApi.Object update = new TdApi.UpdateOption();
+
+    private final TdApi.Function<?> query = new TdApi.GetOption("version");
+
+    private final Client.ResponseReceiver receiver = new Client.ResponseReceiver();
+
+    private Client client;
+
+    private Client.ResultHandler resultHandler;
+
+    private int nativeClientId;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        FakeTransport.installSilent();
+        client = Client.create(blackhole::consume, null, null);
+        nativeClientId = 1;
+        resultHandler = blackhole::consume;
+    }
+
+    @Benchmark
+    public void processQueryResult() {
+        long queryId = client.send(query, resultHandler);
+        receiver.processResult(nativeClientId, queryId, result);
+    }
+
+    @Benchmark
+    public void processUpdate() {
+        receiver.processResult(nativeClientId, 0, update);
+    }
+
+}
@@ -5,6 +5,7 @@ import arrow.core.left
 import arrow.core.right
 import dev.voroby.springframework.telegram.client.templates.response.Response
 import org.drinkless.tdlib.TdApi
+import java.time.Duration
 import java.util.concurrent.CompletableFuture
 
 class KTelegramClient(private val delegate: TelegramClient) {
@@ -12,9 +13,15 @@ class KTelegramClient(private val delegate: TelegramClient) {
     fun <T : TdApi.Object> send(query: TdApi.Function<T>): Either<TdApi.Error, T> =
         delegate.send(query).toEither()
 
+    fun <T : TdApi.Object> send(query: TdApi.Function<T>, timeout: Duration): Either<TdApi.Error, T> =
+        delegate.send(query, timeout).toEither()
+
     fun <T : TdApi.Object> sendAsync(query: TdApi.Function<T>): CompletableFuture<Either<TdApi.Error, T>> =
         delegate.sendAsync(query).thenApply { it.toEither() }
 
+    fun <T : TdApi.Object> sendAsync(query: TdApi.Function<T>, timeout: Duration): CompletableFuture<Either<TdApi.Error, T>> =
+        delegate.sendAsync(query, timeout).thenApply { it.toEither() }
+
     fun  <T : TdApi.Object> sendWithCallback(
         query: TdApi.Function<T>,
         resultHandler: QueryResultHandler<T>
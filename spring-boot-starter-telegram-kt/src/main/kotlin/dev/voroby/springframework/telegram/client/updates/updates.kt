@@ -1,6 +1,7 @@
 package dev.voroby.springframework.telegram.client.updates
 
 import org.drinkless.tdlib.TdApi
+import java.time.Duration
 
 inline fun <reified T : TdApi.Update> listenUpdate(crossinline handler: (T) -> Unit): UpdateNotificationListener<T> =
     object : UpdateNotificationListener<T> {
@@ -9,3 +10,19 @@ inline fun <reified T : TdApi.Update> listenUpdate(crossinline handler: (T) -> U
 
         override fun notificationType(): Class<T> = T::class.java
     }
+
+inline fun <reified T : TdApi.Update> listenUpdates(
+    maxBatchSize: Int = 1000,
+    maxBatchDelay: Duration = Duration.ZERO,
+    crossinline handler: (List<T>) -> Unit
+): BatchUpdateListener<T> =
+    object : BatchUpdateListener<T> {
+
+        override fun handleNotifications(notifications: List<T>) = handler(notifications)
+
+        override fun notificationType(): Class<T> = T::class.java
+
+        override fun maxBatchSize(): Int = maxBatchSize
+
+        override fun maxBatchDelay(): Duration = maxBatchDelay
+    }
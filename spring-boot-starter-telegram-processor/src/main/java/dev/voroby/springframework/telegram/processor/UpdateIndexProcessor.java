@@ -0,0 +1,129 @@
+package dev.voroby.springframework.telegram.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the index of constructor identifiers of {@code TdApi.Update} types at build time,
+ * so the starter registers update listeners without reflective instantiation.
+ * The index is generated once, when {@code org.drinkless.tdlib.TdApi} is compiled or on the class path.
+ * The processor doesn't claim annotations and doesn't interfere with other processors.
+ *
+ * @author Pavel Vorobyev
+ */
+@SupportedAnnotationTypes("*")
+public class UpdateIndexProcessor extends AbstractProcessor {
+
+    static final String TD_API = "org.drinkless.tdlib.TdApi";
+
+    static final String INDEX_PACKAGE = "dev.voroby.springframework.telegram.client";
+
+    static final String INDEX_CLASS = "UpdateTypeIndex";
+
+    private boolean generated;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        generated = true;
+        var elements = processingEnv.getElementUtils();
+        TypeElement tdApi = elements.getTypeElement(TD_API);
+        TypeElement update = elements.getTypeElement(TD_API + ".Update");
+        if (tdApi == null || update == null || elements.getTypeElement(INDEX_PACKAGE + "." + INDEX_CLASS) != null) {
+            return false;
+        }
+        List<String> updateTypes = updateTypes(tdApi, update);
+        try {
+            write(updateTypes, tdApi);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Indexed " + updateTypes.size() + " update types of " + TD_API);
+        return false;
+    }
+
+    private List<String> updateTypes(TypeElement tdApi, TypeElement update) {
+        Types types = processingEnv.getTypeUtils();
+        return tdApi.getEnclosedElements().stream()
+                .filter(element -> element.getKind() == ElementKind.CLASS)
+                .filter(element -> !element.getModifiers().contains(Modifier.ABSTRACT))
+                .filter(element -> types.isSubtype(types.erasure(element.asType()), types.erasure(update.asType())))
+                .filter(UpdateIndexProcessor::hasConstructorField)
+                .map(element -> element.getSimpleName().toString())
+                .toList();
+    }
+
+    private static boolean hasConstructorField(Element type) {
+        return type.getEnclosedElements().stream()
+                .anyMatch(element -> element.getKind() == ElementKind.FIELD &&
+                        element.getSimpleName().contentEquals("CONSTRUCTOR") &&
+                        element.getModifiers().contains(Modifier.STATIC));
+    }
+
+    private void write(List<String> updateTypes, TypeElement tdApi) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(INDEX_PACKAGE + "." + INDEX_CLASS, tdApi);
+        try (var out = new PrintWriter(file.openWriter())) {
+            out.println("package " + INDEX_PACKAGE + ";");
+            out.println();
+            out.println("import org.drinkless.tdlib.TdApi;");
+            out.println();
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("/**");
+            out.println(" * Constructor identifiers of {@link TdApi.Update} types, generated from TdApi at build time.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + UpdateIndexProcessor.class.getName() + "\")");
+            out.println("final class " + INDEX_CLASS + " {");
+            out.println();
+            out.println("    private static final Map<Class<?>, Integer> CONSTRUCTORS = Map.ofEntries(");
+            for (int i = 0; i < updateTypes.size(); i++) {
+                String type = "TdApi." + updateTypes.get(i);
+                out.println("            Map.entry(" + type + ".class, " + type + ".CONSTRUCTOR)" +
+                        (i < updateTypes.size() - 1 ? "," : ""));
+            }
+            out.println("    );");
+            out.println();
+            out.println("    private " + INDEX_CLASS + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * @param type update type");
+            out.println("     * @return constructor identifier of the type or null if the type isn't declared in TdApi");
+            out.println("     */");
+            out.println("    static Integer constructorOf(Class<?> type) {");
+            out.println("        return CONSTRUCTORS.get(type);");
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+}
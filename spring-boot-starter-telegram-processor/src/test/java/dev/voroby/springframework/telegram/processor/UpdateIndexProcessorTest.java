@@ -0,0 +1,78 @@
+package dev.voroby.springframework.telegram.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateIndexProcessorTest {
+
+    private static final String TD_API = """
+            package org.drinkless.tdlib;
+
+            public class TdApi {
+                public abstract static class Object {
+                    public abstract int getConstructor();
+                }
+                public abstract static class Update extends Object {
+                }
+                public static class UpdateChatTitle extends Update {
+                    public static final int CONSTRUCTOR = -175405660;
+                    public int getConstructor() { return CONSTRUCTOR; }
+                }
+                public static class UpdateUserStatus extends Update {
+                    public static final int CONSTRUCTOR = -958468625;
+                    public int getConstructor() { return CONSTRUCTOR; }
+                }
+                public static class GetMe extends Object {
+                    public static final int CONSTRUCTOR = -191516033;
+                    public int getConstructor() { return CONSTRUCTOR; }
+                }
+            }
+            """;
+
+    private static final String LOOKUP = """
+            package dev.voroby.springframework.telegram.client;
+
+            class Lookup {
+                static Integer chatTitle() {
+                    return UpdateTypeIndex.constructorOf(org.drinkless.tdlib.TdApi.UpdateChatTitle.class);
+                }
+            }
+            """;
+
+    @Test
+    void indexesUpdateTypesOfTdApi(@TempDir Path dir) throws IOException {
+        Path tdApi = write(dir.resolve("src/org/drinkless/tdlib/TdApi.java"), TD_API);
+        Path lookup = write(dir.resolve("src/dev/voroby/springframework/telegram/client/Lookup.java"), LOOKUP);
+        Path out = Files.createDirectories(dir.resolve("out"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (var fileManager = compiler.getStandardFileManager(null, null, null)) {
+            var task = compiler.getTask(null, fileManager, null,
+                    List.of("-d", out.toString(), "-s", out.toString()), null,
+                    fileManager.getJavaFileObjects(tdApi, lookup));
+            task.setProcessors(List.of(new UpdateIndexProcessor()));
+            assertTrue(task.call());
+        }
+
+        String index = Files.readString(out.resolve("dev/voroby/springframework/telegram/client/UpdateTypeIndex.java"));
+        assertTrue(index.contains("Map.entry(TdApi.UpdateChatTitle.class, TdApi.UpdateChatTitle.CONSTRUCTOR)"));
+        assertTrue(index.contains("Map.entry(TdApi.UpdateUserStatus.class, TdApi.UpdateUserStatus.CONSTRUCTOR)"));
+        assertFalse(index.contains("GetMe"));
+        assertFalse(index.contains("TdApi.Update.class"));
+    }
+
+    private static Path write(Path path, String source) throws IOException {
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, source);
+    }
+
+}
@@ -0,0 +1,54 @@
+package dev.voroby.springframework.telegram;
+
+import dev.voroby.springframework.telegram.client.ReactiveTelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.templates.ChatTemplate;
+import dev.voroby.springframework.telegram.client.templates.ReactiveChatTemplate;
+import dev.voroby.springframework.telegram.client.templates.ReactiveUserTemplate;
+import dev.voroby.springframework.telegram.client.templates.UserTemplate;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Project Reactor API of the Telegram client, enabled if there is a {@link TelegramClient} bean.
+ *
+ * @author Pavel Vorobyev
+ */
+@AutoConfiguration(after = TelegramClientAutoConfiguration.class)
+@ConditionalOnBean(TelegramClient.class)
+public class ReactiveTelegramClientAutoConfiguration {
+
+    /**
+     * @param telegramClient Telegram client
+     * @return {@link ReactiveTelegramClient}
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveTelegramClient reactiveTelegramClient(@Lazy TelegramClient telegramClient) {
+        return new ReactiveTelegramClient(telegramClient);
+    }
+
+    /**
+     * @param chatTemplate template of chat related objects
+     * @return {@link ReactiveChatTemplate}
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveChatTemplate reactiveChatTemplate(ChatTemplate chatTemplate) {
+        return new ReactiveChatTemplate(chatTemplate);
+    }
+
+    /**
+     * @param userTemplate template of user related objects
+     * @return {@link ReactiveUserTemplate}
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveUserTemplate reactiveUserTemplate(UserTemplate userTemplate) {
+        return new ReactiveUserTemplate(userTemplate);
+    }
+
+}
@@ -0,0 +1,116 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import dev.voroby.springframework.telegram.client.updates.UpdateSubscription;
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Project Reactor API of the {@link TelegramClient}.
+ * Queries are sent on subscription. Updates of a type are published by a {@link Flux} per subscriber:
+ * the TDLib thread only puts an update into the bounded buffer of the subscriber, updates are emitted
+ * on the scheduler as the subscriber requests them. The scheduler takes one update from the buffer ahead of demand.
+ *
+ * @author Pavel Vorobyev
+ */
+public class ReactiveTelegramClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTelegramClient.class);
+
+    /**
+     * Default number of updates buffered for a subscriber.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 10_000;
+
+    private final TelegramClient telegramClient;
+
+    private final Scheduler scheduler;
+
+    /**
+     * @param telegramClient Telegram client
+     */
+    public ReactiveTelegramClient(TelegramClient telegramClient) {
+        this(telegramClient, Schedulers.boundedElastic());
+    }
+
+    /**
+     * @param telegramClient Telegram client
+     * @param scheduler scheduler emitting updates to subscribers
+     */
+    public ReactiveTelegramClient(TelegramClient telegramClient, Scheduler scheduler) {
+        this.telegramClient = Objects.requireNonNull(telegramClient);
+        this.scheduler = Objects.requireNonNull(scheduler);
+    }
+
+    /**
+     * Sends a request to the TDLib on subscription.
+     *
+     * @throws NullPointerException if query is null.
+     * @param query object representing a query to the TDLib.
+     * @return {@link Mono<Response>} response from TDLib,
+     * errors with {@link dev.voroby.springframework.telegram.exception.TelegramClientTimeoutException} on timeout.
+     */
+    public <T extends TdApi.Object> Mono<Response<T>> send(TdApi.Function<T> query) {
+        Objects.requireNonNull(query);
+        return Mono.fromFuture(() -> telegramClient.sendAsync(query));
+    }
+
+    /**
+     * Sends a request to the TDLib on subscription.
+     *
+     * @throws NullPointerException if query or timeout is null.
+     * @param query object representing a query to the TDLib.
+     * @param timeout deadline of the query, zero or negative to wait without a deadline.
+     * @return {@link Mono<Response>} response from TDLib,
+     * errors with {@link dev.voroby.springframework.telegram.exception.TelegramClientTimeoutException} on timeout.
+     */
+    public <T extends TdApi.Object> Mono<Response<T>> send(TdApi.Function<T> query, Duration timeout) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(timeout);
+        return Mono.fromFuture(() -> telegramClient.sendAsync(query, timeout));
+    }
+
+    /**
+     * Updates of the type received after subscription, up to {@value #DEFAULT_BUFFER_SIZE} updates are buffered
+     * for a slow subscriber, the oldest are dropped when the buffer is full.
+     *
+     * @param type type of updates
+     * @return {@link Flux} of updates, it never completes
+     */
+    public <T extends TdApi.Update> Flux<T> updates(Class<T> type) {
+        return updates(type, DEFAULT_BUFFER_SIZE, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * Updates of the type received after subscription.
+     *
+     * @param type type of updates
+     * @param bufferSize max number of updates buffered for the subscriber
+     * @param overflow strategy applied when the buffer is full, {@link BufferOverflowStrategy#ERROR} terminates the flux
+     * @return {@link Flux} of updates, it never completes unless the overflow strategy terminates it
+     */
+    public <T extends TdApi.Update> Flux<T> updates(Class<T> type, int bufferSize, BufferOverflowStrategy overflow) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(overflow);
+        return Flux.<T>push(sink -> {
+                    UpdateSubscription subscription = telegramClient.subscribe(type, sink::next);
+                    sink.onDispose(subscription::close);
+                }, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureBuffer(bufferSize,
+                        dropped -> log.debug("Update {} is dropped, the subscriber is too slow",
+                                dropped.getClass().getSimpleName()),
+                        overflow)
+                .publishOn(scheduler, 1);
+    }
+
+}
@@ -0,0 +1,201 @@
+package dev.voroby.springframework.telegram.client.templates;
+
+import org.drinkless.tdlib.TdApi;
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Project Reactor variant of {@link ChatTemplate} for chat related objects.
+ *
+ * @author Pavel Vorobyev
+ */
+public class ReactiveChatTemplate {
+
+    private final ChatTemplate chatTemplate;
+
+    /**
+     * @param chatTemplate template returning futures
+     */
+    public ReactiveChatTemplate(ChatTemplate chatTemplate) {
+        this.chatTemplate = Objects.requireNonNull(chatTemplate);
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getChat(long)}.
+     *
+     * @param chatId Chat identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Chat>> getChat(long chatId) {
+        return Mono.fromFuture(() -> chatTemplate.getChat(chatId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#joinChat(long)}.
+     *
+     * @param chatId Chat identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Ok>> joinChat(long chatId) {
+        return Mono.fromFuture(() -> chatTemplate.joinChat(chatId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#searchChats(String, int)}.
+     *
+     * @param query Query to search for.
+     * @param limit The maximum number of chats to be returned.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Chats>> searchChats(String query, int limit) {
+        return Mono.fromFuture(() -> chatTemplate.searchChats(query, limit));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#searchPublicChat(String)}.
+     *
+     * @param username Username to be resolved.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Chat>> searchPublicChat(String username) {
+        return Mono.fromFuture(() -> chatTemplate.searchPublicChat(username));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#searchPublicChats(String)}.
+     *
+     * @param query Query to search for.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Chats>> searchPublicChats(String query) {
+        return Mono.fromFuture(() -> chatTemplate.searchPublicChats(query));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#leaveChat(long)}.
+     *
+     * @param chatId Chat identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Ok>> leaveChat(long chatId) {
+        return Mono.fromFuture(() -> chatTemplate.leaveChat(chatId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#deleteChat(long)}.
+     *
+     * @param chatId Chat identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Ok>> deleteChat(long chatId) {
+        return Mono.fromFuture(() -> chatTemplate.deleteChat(chatId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getBasicGroup(long)}.
+     *
+     * @param basicGroupId Basic group identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.BasicGroup>> getBasicGroup(long basicGroupId) {
+        return Mono.fromFuture(() -> chatTemplate.getBasicGroup(basicGroupId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getBasicGroupFullInfo(long)}.
+     *
+     * @param basicGroupId Basic group identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.BasicGroupFullInfo>> getBasicGroupFullInfo(long basicGroupId) {
+        return Mono.fromFuture(() -> chatTemplate.getBasicGroupFullInfo(basicGroupId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroup(long)}.
+     *
+     * @param supergroupId Supergroup or channel identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.Supergroup>> getSupergroup(long supergroupId) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroup(supergroupId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroupFullInfo(long)}.
+     *
+     * @param supergroupId Supergroup or channel identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.SupergroupFullInfo>> getSupergroupFullInfo(long supergroupId) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroupFullInfo(supergroupId));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getChats(long[])}.
+     *
+     * @param chatIds Chat identifiers.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.Chat>>> getChats(long[] chatIds) {
+        return Mono.fromFuture(() -> chatTemplate.getChats(chatIds));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getChats(long[], int)}.
+     *
+     * @param chatIds Chat identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.Chat>>> getChats(long[] chatIds, int window) {
+        return Mono.fromFuture(() -> chatTemplate.getChats(chatIds, window));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroups(long[])}.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.Supergroup>>> getSupergroups(long[] supergroupIds) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroups(supergroupIds));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroups(long[], int)}.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.Supergroup>>> getSupergroups(long[] supergroupIds, int window) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroups(supergroupIds, window));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroupFullInfos(long[])}.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.SupergroupFullInfo>>> getSupergroupFullInfos(long[] supergroupIds) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroupFullInfos(supergroupIds));
+    }
+
+    /**
+     * Reactive variant of {@link ChatTemplate#getSupergroupFullInfos(long[], int)}.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.SupergroupFullInfo>>> getSupergroupFullInfos(long[] supergroupIds,
+                                                                                      int window) {
+        return Mono.fromFuture(() -> chatTemplate.getSupergroupFullInfos(supergroupIds, window));
+    }
+
+}
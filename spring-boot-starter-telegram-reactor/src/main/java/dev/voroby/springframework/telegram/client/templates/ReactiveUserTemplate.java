@@ -0,0 +1,158 @@
+package dev.voroby.springframework.telegram.client.templates;
+
+import org.drinkless.tdlib.TdApi;
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Project Reactor variant of {@link UserTemplate} for {@link TdApi.User} related objects.
+ *
+ * @author Pavel Vorobyev
+ */
+public class ReactiveUserTemplate {
+
+    private final UserTemplate userTemplate;
+
+    /**
+     * @param userTemplate template returning futures
+     */
+    public ReactiveUserTemplate(UserTemplate userTemplate) {
+        this.userTemplate = Objects.requireNonNull(userTemplate);
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUser(long)}.
+     *
+     * @param userId User identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.User>> getUser(long userId) {
+        return Mono.fromFuture(() -> userTemplate.getUser(userId));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUserFullInfo(long)}.
+     *
+     * @param userId User identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.UserFullInfo>> getUserFullInfo(long userId) {
+        return Mono.fromFuture(() -> userTemplate.getUserFullInfo(userId));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUserLink()}.
+     *
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.UserLink>> getUserLink() {
+        return Mono.fromFuture(() -> userTemplate.getUserLink());
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getMe()}.
+     *
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.User>> getMe() {
+        return Mono.fromFuture(() -> userTemplate.getMe());
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getProfilePhoto(long)}.
+     *
+     * @param userId User identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.ProfilePhoto>> getProfilePhoto(long userId) {
+        return Mono.fromFuture(() -> userTemplate.getProfilePhoto(userId));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getPublicPhoto(long)}.
+     *
+     * @param userId User identifier.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.ChatPhoto>> getPublicPhoto(long userId) {
+        return Mono.fromFuture(() -> userTemplate.getPublicPhoto(userId));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUserProfilePhotos(long, int, int)}.
+     *
+     * @param userId User identifier.
+     * @param offset The number of photos to skip; must be non-negative.
+     * @param limit The maximum number of photos to be returned; up to 100.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.ChatPhotos>> getUserProfilePhotos(long userId, int offset, int limit) {
+        return Mono.fromFuture(() -> userTemplate.getUserProfilePhotos(userId, offset, limit));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#searchUserByPhoneNumber(String)}.
+     *
+     * @param phoneNumber Phone number in international format to search for.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.User>> searchUserByPhoneNumber(String phoneNumber) {
+        return Mono.fromFuture(() -> userTemplate.searchUserByPhoneNumber(phoneNumber));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#searchUserByUsername(String)}.
+     *
+     * @param username Username to search for.
+     * @return {@link Mono} of the response, the query is sent on subscription.
+     */
+    public Mono<Response<TdApi.User>> searchUserByUsername(String username) {
+        return Mono.fromFuture(() -> userTemplate.searchUserByUsername(username));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUsers(long[])}.
+     *
+     * @param userIds User identifiers.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.User>>> getUsers(long[] userIds) {
+        return Mono.fromFuture(() -> userTemplate.getUsers(userIds));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUsers(long[], int)}.
+     *
+     * @param userIds User identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.User>>> getUsers(long[] userIds, int window) {
+        return Mono.fromFuture(() -> userTemplate.getUsers(userIds, window));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUserFullInfos(long[])}.
+     *
+     * @param userIds User identifiers.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.UserFullInfo>>> getUserFullInfos(long[] userIds) {
+        return Mono.fromFuture(() -> userTemplate.getUserFullInfos(userIds));
+    }
+
+    /**
+     * Reactive variant of {@link UserTemplate#getUserFullInfos(long[], int)}.
+     *
+     * @param userIds User identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link Mono} of responses by identifier, the queries are sent on subscription.
+     */
+    public Mono<Map<Long, Response<TdApi.UserFullInfo>>> getUserFullInfos(long[] userIds, int window) {
+        return Mono.fromFuture(() -> userTemplate.getUserFullInfos(userIds, window));
+    }
+
+}
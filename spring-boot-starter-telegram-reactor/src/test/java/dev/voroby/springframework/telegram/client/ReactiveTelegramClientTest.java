@@ -0,0 +1,68 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import dev.voroby.springframework.telegram.client.updates.UpdateSubscription;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveTelegramClientTest {
+
+    private final TelegramClient telegramClient = mock(TelegramClient.class);
+
+    private final UpdateSubscription subscription = mock(UpdateSubscription.class);
+
+    private final ReactiveTelegramClient reactiveClient = new ReactiveTelegramClient(telegramClient, Schedulers.immediate());
+
+    @Test
+    void queryIsSentOnSubscription() {
+        var getChat = new TdApi.GetChat(1);
+        var chat = new TdApi.Chat();
+        when(telegramClient.sendAsync(getChat)).thenReturn(CompletableFuture.completedFuture(new Response<>(chat, null)));
+
+        var response = reactiveClient.send(getChat);
+        verify(telegramClient, never()).sendAsync(getChat);
+
+        StepVerifier.create(response)
+                .assertNext(next -> assertEquals(chat, next.getObject().orElseThrow()))
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesAreEmittedOnDemand() {
+        ArgumentCaptor<Consumer<TdApi.UpdateChatTitle>> consumer = ArgumentCaptor.forClass(Consumer.class);
+        when(telegramClient.subscribe(eq(TdApi.UpdateChatTitle.class), any())).thenReturn(subscription);
+
+        StepVerifier.create(reactiveClient.updates(TdApi.UpdateChatTitle.class, 2, BufferOverflowStrategy.DROP_OLDEST), 0)
+                .then(() -> {
+                    verify(telegramClient).subscribe(eq(TdApi.UpdateChatTitle.class), consumer.capture());
+                    // "title 0" is taken by the scheduler, "title 1" is dropped by the buffer of two updates
+                    for (int i = 0; i < 4; i++) {
+                        consumer.getValue().accept(new TdApi.UpdateChatTitle(i, "title " + i));
+                    }
+                })
+                .thenRequest(1)
+                .assertNext(update -> assertEquals("title 0", update.title))
+                .thenRequest(1)
+                .assertNext(update -> assertEquals("title 2", update.title))
+                .thenRequest(1)
+                .assertNext(update -> assertEquals("title 3", update.title))
+                .thenCancel()
+                .verify();
+
+        verify(subscription).close();
+    }
+
+}
@@ -3,10 +3,12 @@ package dev.voroby.springframework.telegram;
 import org.drinkless.tdlib.Client;
 import org.drinkless.tdlib.TdApi;
 import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramClientObserver;
 import dev.voroby.springframework.telegram.client.runner.TelegramRunnersConsumer;
 import dev.voroby.springframework.telegram.client.runner.TelegramRunnersConsumerImpl;
 import dev.voroby.springframework.telegram.client.templates.ChatTemplate;
 import dev.voroby.springframework.telegram.client.templates.UserTemplate;
+import dev.voroby.springframework.telegram.client.updates.BatchUpdateListener;
 import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
 import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationStateImpl;
 import dev.voroby.springframework.telegram.client.updates.UpdateAuthorizationState;
@@ -14,6 +16,7 @@ import dev.voroby.springframework.telegram.client.updates.UpdateNotificationList
 import dev.voroby.springframework.telegram.properties.TelegramProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
@@ -21,6 +24,7 @@ import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.context.annotation.Lazy;
 
 import java.util.Collection;
@@ -32,6 +36,7 @@ import java.util.Collection;
  */
 @Configuration
 @ConfigurationPropertiesScan(basePackages = "dev.voroby.springframework.telegram.properties")
+@ImportRuntimeHints(TelegramClientRuntimeHints.class)
 public class TelegramClientAutoConfiguration {
 
     private final static Logger log = LoggerFactory.getLogger(TelegramClientAutoConfiguration.class);
@@ -56,16 +61,21 @@ public class TelegramClientAutoConfiguration {
      *
      * @param properties {@link TelegramProperties}
      * @param notificationHandlers collection of {@link UpdateNotificationListener} beans
+     * @param batchNotificationHandlers {@link BatchUpdateListener} beans
      * @param defaultHandler default handler for incoming updates
      * @param clientAuthorizationState authorization state of the client
+     * @param observer observer of the client, e.g. metrics
      * @return {@link TelegramClient}
      */
     @Bean
     public TelegramClient telegramClient(TelegramProperties properties,
                                          Collection<UpdateNotificationListener<?>> notificationHandlers,
+                                         ObjectProvider<BatchUpdateListener<?>> batchNotificationHandlers,
                                          Client.ResultHandler defaultHandler,
-                                         ClientAuthorizationState clientAuthorizationState) {
-        return new TelegramClient(properties, notificationHandlers, defaultHandler, clientAuthorizationState);
+                                         ClientAuthorizationState clientAuthorizationState,
+                                         ObjectProvider<TelegramClientObserver> observer) {
+        return new TelegramClient(properties, notificationHandlers, batchNotificationHandlers.orderedStream().toList(),
+                defaultHandler, clientAuthorizationState, observer.getIfUnique(() -> TelegramClientObserver.NOOP));
     }
 
     /**
@@ -85,8 +95,9 @@ public class TelegramClientAutoConfiguration {
      */
     @Bean
     public UpdateNotificationListener<TdApi.UpdateAuthorizationState> updateAuthorizationNotification(TelegramProperties properties,
-                                                                                                      @Lazy TelegramClient telegramClient) {
-        return new UpdateAuthorizationState(properties, telegramClient);
+                                                                                                      @Lazy TelegramClient telegramClient,
+                                                                                                      ClientAuthorizationState clientAuthorizationState) {
+        return new UpdateAuthorizationState(properties, telegramClient, clientAuthorizationState);
     }
 
     /**
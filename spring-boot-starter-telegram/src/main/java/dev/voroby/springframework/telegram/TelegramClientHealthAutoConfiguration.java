@@ -0,0 +1,61 @@
+package dev.voroby.springframework.telegram;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.health.TelegramClientHealthIndicator;
+import dev.voroby.springframework.telegram.client.health.TelegramClientInfoContributor;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.health.autoconfigure.contributor.ConditionalOnEnabledHealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Actuator health indicator and info contributor of the Telegram client, enabled if Spring Boot health
+ * and actuator are on the class path. The health indicator is disabled by
+ * {@code management.health.telegram.enabled=false}.
+ *
+ * @author Pavel Vorobyev
+ */
+@AutoConfiguration(after = TelegramClientAutoConfiguration.class)
+@ConditionalOnBean(TelegramClient.class)
+public class TelegramClientHealthAutoConfiguration {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.health.contributor.HealthIndicator")
+    static class HealthIndicatorConfiguration {
+
+        /**
+         * @param telegramClient Telegram client
+         * @param authorizationState authorization state of the client
+         * @return {@link TelegramClientHealthIndicator}
+         */
+        @Bean
+        @ConditionalOnEnabledHealthIndicator("telegram")
+        @ConditionalOnMissingBean(name = "telegramHealthIndicator")
+        public TelegramClientHealthIndicator telegramHealthIndicator(TelegramClient telegramClient,
+                                                                     ClientAuthorizationState authorizationState) {
+            return new TelegramClientHealthIndicator(telegramClient, authorizationState);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.info.InfoContributor")
+    static class InfoContributorConfiguration {
+
+        /**
+         * @param telegramClient Telegram client
+         * @param authorizationState authorization state of the client
+         * @return {@link TelegramClientInfoContributor}
+         */
+        @Bean
+        @ConditionalOnMissingBean(name = "telegramInfoContributor")
+        public TelegramClientInfoContributor telegramInfoContributor(TelegramClient telegramClient,
+                                                                     ClientAuthorizationState authorizationState) {
+            return new TelegramClientInfoContributor(telegramClient, authorizationState);
+        }
+    }
+
+}
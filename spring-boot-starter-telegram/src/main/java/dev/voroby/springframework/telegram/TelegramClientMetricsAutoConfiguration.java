@@ -0,0 +1,35 @@
+package dev.voroby.springframework.telegram;
+
+import dev.voroby.springframework.telegram.client.TelegramClientObserver;
+import dev.voroby.springframework.telegram.client.metrics.MicrometerClientObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Micrometer metrics of the Telegram client, enabled if there is a {@link MeterRegistry} bean.
+ *
+ * @author Pavel Vorobyev
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.micrometer.metrics.autoconfigure.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.micrometer.metrics.autoconfigure.export.simple.SimpleMetricsExportAutoConfiguration"
+})
+@ConditionalOnClass(MeterRegistry.class)
+public class TelegramClientMetricsAutoConfiguration {
+
+    /**
+     * @param meterRegistry registry of meters
+     * @return {@link MicrometerClientObserver}
+     */
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean(TelegramClientObserver.class)
+    public TelegramClientObserver micrometerClientObserver(MeterRegistry meterRegistry) {
+        return new MicrometerClientObserver(meterRegistry);
+    }
+
+}
@@ -0,0 +1,35 @@
+package dev.voroby.springframework.telegram;
+
+import org.drinkless.tdlib.Client;
+import org.drinkless.tdlib.TdApi;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Runtime hints of the native image.
+ * TDLib creates {@link TdApi} objects and reads their fields through JNI, the client of TDLib is called back
+ * by the native library, and fields of queries are read by reflection when identical queries are coalesced.
+ *
+ * @author Pavel Vorobyev
+ */
+class TelegramClientRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.jni().registerType(Client.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.jni().registerType(Client.LogMessageHandler.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.jni().registerType(TdApi.class);
+        for (Class<?> type : TdApi.class.getDeclaredClasses()) {
+            hints.jni().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.ACCESS_PUBLIC_FIELDS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+            if (TdApi.Function.class.isAssignableFrom(type)) {
+                hints.reflection().registerType(type, MemberCategory.ACCESS_PUBLIC_FIELDS);
+            }
+        }
+    }
+
+}
@@ -1,39 +1,105 @@
 package dev.voroby.springframework.telegram.client;
 
+import dev.voroby.springframework.telegram.client.updates.BatchUpdateListener;
 import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import dev.voroby.springframework.telegram.client.updates.UpdateSubscription;
 import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
 import org.drinkless.tdlib.Client;
 import org.drinkless.tdlib.TdApi;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
  * The main handler for incoming updates from TDLib.
+ * Updates are passed to listeners through their queues of the {@link UpdateDispatcher}.
+ * Every listener of an update type receives the update, listeners are invoked in the iteration order
+ * of the collection, which is {@link org.springframework.core.annotation.Order} order for injected beans.
+ * Updates for {@link BatchUpdateListener}s are collected into {@link UpdateBatch}es on the TDLib thread.
+ * The {@link TelegramObjectCache} applies updates before they are passed to listeners.
+ * State updates are conflated by the {@link UpdateConflator} in front of the queues of listeners.
  */
-final class CoreUpdateHandler implements Client.ResultHandler {
+final class CoreUpdateHandler implements Client.ReceiveCycleHandler {
 
-    private final Map<Integer, Consumer<TdApi.Object>> tdUpdateHandlers = new HashMap<>();
+    private final UpdateListenerTable tdUpdateHandlers;
 
-    private final Client.ResultHandler defaultHandler;
+    private final UpdateListenerTable tdBatchHandlers;
+
+    private final UpdateBatch<?>[] batches;
+
+    private final Consumer<TdApi.Object> defaultHandler;
+
+    private final TelegramClientObserver observer;
+
+    private final TelegramObjectCache objectCache;
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    private volatile UpdateListenerTable subscribers = UpdateListenerTable.builder().build();
+
+    /*
+     * Read by health probes, the time of the last update is stamped once per receive cycle
+     */
+    private volatile long lastUpdateNanos;
+
+    private volatile TdApi.ConnectionState connectionState;
+
+    private boolean updated;
 
     CoreUpdateHandler(Collection<UpdateNotificationListener<?>> notifications, Client.ResultHandler defaultHandler) {
-        this.defaultHandler = defaultHandler;
-        notifications.forEach(ntf -> {
+        this(new Builder(notifications, defaultHandler));
+    }
+
+    private CoreUpdateHandler(Builder builder) {
+        this.observer = builder.observer;
+        this.objectCache = builder.objectCache;
+        UpdateDispatcher dispatcher = builder.dispatcher;
+        UpdateConflator conflator = builder.conflator;
+        Client.ResultHandler defaultHandler = builder.defaultHandler;
+        this.defaultHandler = dispatcher.queue(defaultHandler.getClass().getName(), TdApi.Object.class, defaultHandler::onResult);
+        var tableBuilder = UpdateListenerTable.builder();
+        builder.notifications.forEach(ntf -> {
             var handler = new UpdateNotificationConsumer(ntf, ntf.notificationType());
-            tdUpdateHandlers.putIfAbsent(getConstructorNumberOfType(ntf), handler);
+            Consumer<TdApi.Object> queue = dispatcher.queue(ntf.getClass().getName(), ntf.notificationType(), handler);
+            tableBuilder.add(getConstructorNumberOfType(ntf.notificationType()),
+                    conflator == null ? queue : conflator.conflate(ntf.notificationType(), queue));
         });
+        this.tdUpdateHandlers = tableBuilder.build();
+        var batchTableBuilder = UpdateListenerTable.builder();
+        this.batches = builder.batchNotifications.stream()
+                .map(ntf -> {
+                    int constructor = getConstructorNumberOfType(ntf.notificationType());
+                    var batch = new UpdateBatch<>(ntf, constructor, dispatcher, builder.timeoutWheel);
+                    batchTableBuilder.add(constructor, batch);
+                    return batch;
+                })
+                .toArray(UpdateBatch<?>[]::new);
+        this.tdBatchHandlers = batchTableBuilder.build();
+    }
+
+    /**
+     * @param notifications listeners of updates
+     * @param defaultHandler handler of updates without listeners
+     * @return builder of the handler, updates are handled on the TDLib thread by default
+     */
+    static Builder builder(Collection<UpdateNotificationListener<?>> notifications, Client.ResultHandler defaultHandler) {
+        return new Builder(notifications, defaultHandler);
     }
 
-    private int getConstructorNumberOfType(UpdateNotificationListener<?> updateNotification) {
-        try {
-            TdApi.Update tmp = updateNotification.notificationType().getConstructor().newInstance();
-            return tmp.getConstructor();
-        } catch (ReflectiveOperationException e) {
-            throw new TelegramClientTdApiException(e.getMessage());
+    /*
+     * Constructor identifiers come from the index generated from TdApi at build time, subclasses of TdApi types
+     * are resolved by their TdApi superclass
+     */
+    private static int getConstructorNumberOfType(Class<? extends TdApi.Update> notificationType) {
+        for (Class<?> type = notificationType; type != null && type != TdApi.Update.class; type = type.getSuperclass()) {
+            Integer constructor = UpdateTypeIndex.constructorOf(type);
+            if (constructor != null) {
+                return constructor;
+            }
         }
+        throw new TelegramClientTdApiException("Update type isn't declared in TdApi: " + notificationType.getName());
     }
 
     /**
@@ -41,8 +107,171 @@ final class CoreUpdateHandler implements Client.ResultHandler {
      */
     @Override
     public void onResult(TdApi.Object object) {
-        tdUpdateHandlers.getOrDefault(object.getConstructor(), defaultHandler::onResult).
-                accept(object);
+        observer.onUpdate(object);
+        if (objectCache != null) {
+            objectCache.onUpdate(object);
+        }
+        updated = true;
+        int constructor = object.getConstructor();
+        if (constructor == TdApi.UpdateConnectionState.CONSTRUCTOR) {
+            connectionState = ((TdApi.UpdateConnectionState) object).state;
+        }
+        Consumer<TdApi.Object> batchHandler = tdBatchHandlers.get(constructor, null);
+        if (batchHandler != null) {
+            batchHandler.accept(object);
+        }
+        Consumer<TdApi.Object> subscriber = subscribers.get(constructor, null);
+        if (subscriber != null) {
+            subscriber.accept(object);
+        }
+        Consumer<TdApi.Object> handler = tdUpdateHandlers.get(constructor, null);
+        if (handler != null) {
+            handler.accept(object);
+        } else if (batchHandler == null && subscriber == null) {
+            defaultHandler.accept(object);
+        }
+    }
+
+    /**
+     * Adds the consumer of updates of the type, the table of subscribers is copied on every change.
+     *
+     * @param type type of updates
+     * @param consumer consumer invoked on the TDLib thread
+     * @return subscription, closing it removes the consumer
+     */
+    <T extends TdApi.Update> UpdateSubscription subscribe(Class<T> type, Consumer<? super T> consumer) {
+        var subscription = new Subscription(getConstructorNumberOfType(type),
+                update -> consumer.accept(type.cast(update)));
+        synchronized (subscriptions) {
+            subscriptions.add(subscription);
+            updateSubscribers();
+        }
+        return subscription;
+    }
+
+    private void updateSubscribers() {
+        var tableBuilder = UpdateListenerTable.builder();
+        subscriptions.forEach(subscription -> tableBuilder.add(subscription.constructor, subscription.consumer));
+        subscribers = tableBuilder.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onReceiveCycleEnd() {
+        if (updated) {
+            updated = false;
+            lastUpdateNanos = System.nanoTime();
+        }
+        for (UpdateBatch<?> batch : batches) {
+            batch.onReceiveCycleEnd();
+        }
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the last receive cycle with updates of the client, 0 if there were none
+     */
+    long lastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    /**
+     * @return state of the connection of the last {@link TdApi.UpdateConnectionState}, null if there was none
+     */
+    TdApi.ConnectionState connectionState() {
+        return connectionState;
+    }
+
+    private final class Subscription implements UpdateSubscription {
+
+        private final int constructor;
+
+        private final Consumer<TdApi.Object> consumer;
+
+        Subscription(int constructor, Consumer<TdApi.Object> consumer) {
+            this.constructor = constructor;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void close() {
+            synchronized (subscriptions) {
+                if (subscriptions.remove(this)) {
+                    updateSubscribers();
+                }
+            }
+        }
+    }
+
+    static final class Builder {
+
+        private final Collection<UpdateNotificationListener<?>> notifications;
+
+        private final Client.ResultHandler defaultHandler;
+
+        private Collection<BatchUpdateListener<?>> batchNotifications = List.of();
+
+        private UpdateDispatcher dispatcher = UpdateDispatcher.callerThread();
+
+        private TimeoutWheel timeoutWheel = TimeoutWheel.shared();
+
+        private TelegramClientObserver observer = TelegramClientObserver.NOOP;
+
+        private TelegramObjectCache objectCache;
+
+        private UpdateConflator conflator;
+
+        private Builder(Collection<UpdateNotificationListener<?>> notifications, Client.ResultHandler defaultHandler) {
+            this.notifications = notifications;
+            this.defaultHandler = defaultHandler;
+        }
+
+        Builder batchNotifications(Collection<BatchUpdateListener<?>> batchNotifications) {
+            this.batchNotifications = batchNotifications;
+            return this;
+        }
+
+        Builder dispatcher(UpdateDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+            return this;
+        }
+
+        /**
+         * @param timeoutWheel wheel of batch windows, the wheel shared by all clients by default
+         * @return this builder
+         */
+        Builder timeoutWheel(TimeoutWheel timeoutWheel) {
+            this.timeoutWheel = timeoutWheel;
+            return this;
+        }
+
+        Builder observer(TelegramClientObserver observer) {
+            this.observer = observer;
+            return this;
+        }
+
+        /**
+         * @param objectCache cache updated before listeners, null if caching is disabled
+         * @return this builder
+         */
+        Builder objectCache(TelegramObjectCache objectCache) {
+            this.objectCache = objectCache;
+            return this;
+        }
+
+        /**
+         * @param conflator conflator of state updates, null if conflation is disabled
+         * @return this builder
+         */
+        Builder conflator(UpdateConflator conflator) {
+            this.conflator = conflator;
+            return this;
+        }
+
+        CoreUpdateHandler build() {
+            return new CoreUpdateHandler(this);
+        }
     }
 
 }
@@ -0,0 +1,140 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of in-flight queries of idempotent functions, so that identical queries share one round trip to TDLib.
+ * Queries are identical if they have the same constructor and equal fields. Only functions of the allowlist
+ * whose fields are primitives, strings or arrays of them are coalesced.
+ *
+ * @param <V> type of the in-flight query
+ *
+ * @author Pavel Vorobyev
+ */
+final class QueryCoalescer<V> {
+
+    static final List<String> DEFAULT_FUNCTIONS = List.of(
+            "GetChat", "GetUser", "GetUserFullInfo", "GetSupergroup", "GetSupergroupFullInfo",
+            "GetBasicGroup", "GetBasicGroupFullInfo", "GetFile", "GetRemoteFile", "GetMessage", "GetChatFolder"
+    );
+
+    private final ConcurrentMap<Key, V> inFlight = new ConcurrentHashMap<>();
+
+    private final ClassValue<Field[]> keyFields;
+
+    private QueryCoalescer(Set<String> functions) {
+        this.keyFields = new ClassValue<>() {
+            @Override
+            protected Field[] computeValue(Class<?> type) {
+                return functions.contains(type.getSimpleName()) ? keyFieldsOf(type) : null;
+            }
+        };
+    }
+
+    /**
+     * @param coalescing coalescing properties
+     * @return coalescer or null if coalescing is disabled
+     */
+    static <V> QueryCoalescer<V> create(TelegramProperties.Coalescing coalescing) {
+        if (coalescing == null || !coalescing.enabled()) {
+            return null;
+        }
+        Collection<String> functions = coalescing.functions() != null && !coalescing.functions().isEmpty() ?
+                coalescing.functions() : DEFAULT_FUNCTIONS;
+        return new QueryCoalescer<>(Set.copyOf(functions));
+    }
+
+    private static Field[] keyFieldsOf(Class<?> type) {
+        Field[] fields = Arrays.stream(type.getFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+        for (Field field : fields) {
+            Class<?> fieldType = field.getType().isArray() ? field.getType().getComponentType() : field.getType();
+            if (!fieldType.isPrimitive() && fieldType != String.class) {
+                return null;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @param query query to TDLib
+     * @return key of the query or null if the query is not coalesced
+     */
+    Key keyOf(TdApi.Function<?> query) {
+        Field[] fields = keyFields.get(query.getClass());
+        if (fields == null) {
+            return null;
+        }
+        var values = new Object[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Object value = fields[i].get(query);
+                values[i] = value != null && value.getClass().isArray() ? arrayAsList(value) : value;
+            }
+        } catch (IllegalAccessException e) {
+            throw new TelegramClientTdApiException(e.getMessage(), e);
+        }
+        return new Key(query.getConstructor(), Arrays.asList(values));
+    }
+
+    private static List<Object> arrayAsList(Object array) {
+        var values = new Object[Array.getLength(array)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Array.get(array, i);
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * @param key key of the query
+     * @return in-flight query with the key or null
+     */
+    V get(Key key) {
+        return inFlight.get(key);
+    }
+
+    /**
+     * @param key key of the query
+     * @param query in-flight query
+     * @return the previous in-flight query with the key or null if the query is registered
+     */
+    V putIfAbsent(Key key, V query) {
+        return inFlight.putIfAbsent(key, query);
+    }
+
+    /**
+     * Removes the query which has received the result.
+     *
+     * @param key key of the query
+     * @param query in-flight query
+     */
+    void remove(Key key, V query) {
+        inFlight.remove(key, query);
+    }
+
+    /**
+     * @return number of in-flight coalesced queries
+     */
+    int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Constructor and field values of a query.
+     */
+    record Key(int constructor, List<Object> values) {}
+
+}
@@ -0,0 +1,23 @@
+package dev.voroby.springframework.telegram.client;
+
+/**
+ * Priority lane of outgoing queries, see {@link dev.voroby.springframework.telegram.properties.TelegramProperties.Lanes}.
+ * Every lane has its own budget of queries in flight and its own queue, queued queries of a lane
+ * are sent before queued queries of the lanes below it.
+ *
+ * @author Pavel Vorobyev
+ */
+public enum QueryLane {
+    /**
+     * Queries a user is waiting for, e.g. the start of a stream
+     */
+    INTERACTIVE,
+    /**
+     * Queries without a specific lane
+     */
+    DEFAULT,
+    /**
+     * Background work, e.g. synchronization of the chat history
+     */
+    BULK
+}
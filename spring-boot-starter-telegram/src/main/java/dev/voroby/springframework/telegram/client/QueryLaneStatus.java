@@ -0,0 +1,15 @@
+package dev.voroby.springframework.telegram.client;
+
+/**
+ * Snapshot of a priority lane of outgoing queries.
+ *
+ * @param lane name of the lane
+ * @param maxInFlight max number of queries of the lane waiting for the result
+ * @param inFlight number of queries of the lane waiting for the result
+ * @param queued number of queries waiting in the queue of the lane
+ * @param sent number of queries of the lane sent to TDLib
+ * @param rejected number of queries rejected because the queue of the lane was full
+ *
+ * @author Pavel Vorobyev
+ */
+public record QueryLaneStatus(String lane, int maxInFlight, int inFlight, int queued, long sent, long rejected) {}
@@ -0,0 +1,257 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientConfigurationException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Priority lanes of outgoing queries. A query is sent at once if its lane and the client have budget
+ * and nothing is queued in its lane, otherwise it waits in the bounded queue of the lane.
+ * When a query of any lane is answered, queued queries are sent in the order of lanes, so interactive queries
+ * overtake queued bulk work. A full queue rejects the query with error code 429.
+ * The lane of a query is the lane of the calling thread, see {@link #callIn}, or the lane configured
+ * for the function type, {@link QueryLane#DEFAULT} otherwise.
+ *
+ * @author Pavel Vorobyev
+ */
+final class QueryLanes {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final Map<QueryLane, Integer> DEFAULT_MAX_IN_FLIGHT = Map.of(
+            QueryLane.INTERACTIVE, 64,
+            QueryLane.DEFAULT, 64,
+            QueryLane.BULK, 8
+    );
+
+    private static final ThreadLocal<QueryLane> scope = new ThreadLocal<>();
+
+    /*
+     * Lanes by ordinal, in the order of priority
+     */
+    private final Lane[] lanes;
+
+    private final int maxInFlight;
+
+    private final ClassValue<Lane> functionLanes;
+
+    private int inFlight;
+
+    private QueryLanes(Lane[] lanes, int maxInFlight, Map<String, QueryLane> functions) {
+        this.lanes = lanes;
+        this.maxInFlight = maxInFlight;
+        this.functionLanes = new ClassValue<>() {
+            @Override
+            protected Lane computeValue(Class<?> type) {
+                return lanes[functions.getOrDefault(type.getSimpleName(), QueryLane.DEFAULT).ordinal()];
+            }
+        };
+    }
+
+    /**
+     * @param properties lanes properties
+     * @return lanes or null if lanes are disabled
+     */
+    static QueryLanes create(TelegramProperties.Lanes properties) {
+        if (properties == null || !properties.enabled()) {
+            return null;
+        }
+        Map<QueryLane, TelegramProperties.Lanes.Limit> limits = new EnumMap<>(QueryLane.class);
+        if (properties.limits() != null) {
+            properties.limits().forEach((lane, limit) -> limits.put(laneOf(lane), limit));
+        }
+        Lane[] lanes = new Lane[QueryLane.values().length];
+        for (QueryLane lane : QueryLane.values()) {
+            TelegramProperties.Lanes.Limit limit = limits.get(lane);
+            int maxInFlight = limit != null && limit.maxInFlight() > 0 ?
+                    limit.maxInFlight() : DEFAULT_MAX_IN_FLIGHT.get(lane);
+            int queueCapacity = limit != null && limit.queueCapacity() > 0 ?
+                    limit.queueCapacity() : DEFAULT_QUEUE_CAPACITY;
+            lanes[lane.ordinal()] = new Lane(lane, maxInFlight, queueCapacity);
+        }
+        Map<String, QueryLane> functions = new HashMap<>();
+        if (properties.functions() != null) {
+            properties.functions().forEach((function, lane) -> functions.put(function, laneOf(lane)));
+        }
+        int maxInFlight = properties.maxInFlight() > 0 ? properties.maxInFlight() : Integer.MAX_VALUE;
+        return new QueryLanes(lanes, maxInFlight, Map.copyOf(functions));
+    }
+
+    private static QueryLane laneOf(String name) {
+        try {
+            return QueryLane.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new TelegramClientConfigurationException("Unknown query lane: " + name +
+                    ". Available lanes - interactive, default, bulk");
+        }
+    }
+
+    /**
+     * Runs the action with queries of the calling thread sent in the lane.
+     *
+     * @param lane lane of queries
+     * @param action action sending queries
+     * @return result of the action
+     */
+    static <R> R callIn(QueryLane lane, Supplier<R> action) {
+        QueryLane outer = scope.get();
+        scope.set(lane);
+        try {
+            return action.get();
+        } finally {
+            if (outer != null) {
+                scope.set(outer);
+            } else {
+                scope.remove();
+            }
+        }
+    }
+
+    /**
+     * @param query query to send
+     * @return lane of the calling thread or of the function type
+     */
+    Lane laneOf(TdApi.Function<?> query) {
+        QueryLane lane = scope.get();
+        return lane != null ? lanes[lane.ordinal()] : functionLanes.get(query.getClass());
+    }
+
+    /**
+     * Admits the query at once, queues it or rejects it if the queue of the lane is full.
+     * The query is admitted and rejected on the calling thread, outside the lock.
+     *
+     * @param lane lane of the query
+     * @param query query to send
+     */
+    void submit(Lane lane, Query query) {
+        boolean admitted;
+        synchronized (this) {
+            if (lane.queue.isEmpty() && lane.inFlight < lane.maxInFlight && inFlight < maxInFlight) {
+                lane.inFlight++;
+                lane.sent++;
+                inFlight++;
+                admitted = true;
+            } else if (lane.queue.size() < lane.queueCapacity) {
+                lane.queue.add(query);
+                return;
+            } else {
+                lane.rejected++;
+                admitted = false;
+            }
+        }
+        if (admitted) {
+            query.admit(lane);
+        } else {
+            query.reject("Too many queued queries in lane " + lane.name() + ": " + lane.queueCapacity);
+        }
+    }
+
+    /**
+     * Releases the budget of an answered query and admits queued queries in the order of lanes.
+     *
+     * @param lane lane of the answered query
+     */
+    void release(Lane lane) {
+        List<Admission> admissions = null;
+        synchronized (this) {
+            lane.inFlight--;
+            inFlight--;
+            for (Lane next : lanes) {
+                while (!next.queue.isEmpty() && next.inFlight < next.maxInFlight && inFlight < maxInFlight) {
+                    Query query = next.queue.poll();
+                    if (query.isExpired()) {
+                        continue;
+                    }
+                    next.inFlight++;
+                    next.sent++;
+                    inFlight++;
+                    if (admissions == null) {
+                        admissions = new ArrayList<>();
+                    }
+                    admissions.add(new Admission(next, query));
+                }
+            }
+        }
+        if (admissions != null) {
+            for (Admission admission : admissions) {
+                admission.query.admit(admission.lane);
+            }
+        }
+    }
+
+    /**
+     * @return snapshots of lanes in the order of priority
+     */
+    synchronized List<QueryLaneStatus> statuses() {
+        return Arrays.stream(lanes)
+                .map(lane -> new QueryLaneStatus(lane.name(), lane.maxInFlight, lane.inFlight, lane.queue.size(),
+                        lane.sent, lane.rejected))
+                .toList();
+    }
+
+    /**
+     * Query waiting for admission to a lane.
+     */
+    interface Query {
+
+        /**
+         * @return query has been answered or has expired while queued
+         */
+        boolean isExpired();
+
+        /**
+         * Sends the query, the query releases the lane once it is answered.
+         *
+         * @param lane lane of the query
+         */
+        void admit(Lane lane);
+
+        /**
+         * @param reason error message of the rejected query
+         */
+        void reject(String reason);
+    }
+
+    /**
+     * Lane with its budget, queue and counters, guarded by the lock of {@link QueryLanes}.
+     */
+    static final class Lane {
+
+        private final QueryLane lane;
+
+        private final int maxInFlight;
+
+        private final int queueCapacity;
+
+        private final ArrayDeque<Query> queue = new ArrayDeque<>();
+
+        private int inFlight;
+
+        private long sent;
+
+        private long rejected;
+
+        private Lane(QueryLane lane, int maxInFlight, int queueCapacity) {
+            this.lane = lane;
+            this.maxInFlight = maxInFlight;
+            this.queueCapacity = queueCapacity;
+        }
+
+        String name() {
+            return lane.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record Admission(Lane lane, Query query) {}
+
+}
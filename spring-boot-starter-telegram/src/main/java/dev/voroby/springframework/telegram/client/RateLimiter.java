@@ -0,0 +1,199 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive rate limiter of outgoing queries with a token bucket per function type.
+ * Queries are not blocked, the limiter only tells how long a query has to be delayed.
+ * The rate of a bucket is adjusted additive-increase/multiplicative-decrease: successful queries increase the rate
+ * by at most one query per second every second up to the configured rate, a FLOOD_WAIT error halves the rate
+ * and pauses the bucket for the time requested by Telegram. A negative configured rate disables the token bucket,
+ * queries of such functions are only paused by FLOOD_WAIT errors.
+ *
+ * @author Pavel Vorobyev
+ */
+final class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final double DEFAULT_RATE = 30;
+
+    private static final int DEFAULT_BURST = 5;
+
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    /*
+     * Rate never decreases below one query per ten seconds
+     */
+    private static final double MIN_RATE = 0.1;
+
+    private static final String RETRY_AFTER = "retry after ";
+
+    private static final String FLOOD_WAIT = "FLOOD_WAIT_";
+
+    private final ClassValue<Bucket> buckets;
+
+    private final int maxRetries;
+
+    private RateLimiter(double defaultRate, int burst, Map<String, Double> functions, int maxRetries) {
+        this.maxRetries = maxRetries;
+        this.buckets = new ClassValue<>() {
+            @Override
+            protected Bucket computeValue(Class<?> type) {
+                return new Bucket(type.getSimpleName(), functions.getOrDefault(type.getSimpleName(), defaultRate), burst);
+            }
+        };
+    }
+
+    /**
+     * @param rateLimit rate limit properties
+     * @return rate limiter or null if rate limiting is disabled
+     */
+    static RateLimiter create(TelegramProperties.RateLimit rateLimit) {
+        if (rateLimit == null || !rateLimit.enabled()) {
+            return null;
+        }
+        double rate = rateLimit.rate() != 0 ? rateLimit.rate() : DEFAULT_RATE;
+        int burst = rateLimit.burst() > 0 ? rateLimit.burst() : DEFAULT_BURST;
+        Map<String, Double> functions = rateLimit.functions() != null ? Map.copyOf(rateLimit.functions()) : Map.of();
+        int maxRetries = rateLimit.maxRetries() > 0 ? rateLimit.maxRetries() : DEFAULT_MAX_RETRIES;
+        return new RateLimiter(rate, burst, functions, maxRetries);
+    }
+
+    /**
+     * Takes a token of the function type.
+     *
+     * @param query query to send
+     * @return delay of the query in nanoseconds, 0 if it can be sent immediately
+     */
+    long reserve(TdApi.Function<?> query) {
+        return buckets.get(query.getClass()).reserve(System.nanoTime());
+    }
+
+    /**
+     * Increases the rate of the function type after a successful query.
+     *
+     * @param query answered query
+     */
+    void onSuccess(TdApi.Function<?> query) {
+        buckets.get(query.getClass()).onSuccess();
+    }
+
+    /**
+     * Decreases the rate of the function type and pauses its queries.
+     *
+     * @param query query rejected by FLOOD_WAIT
+     * @param waitNanos time requested by Telegram before the next query
+     */
+    void onFloodWait(TdApi.Function<?> query, long waitNanos) {
+        buckets.get(query.getClass()).onFloodWait(System.nanoTime(), waitNanos);
+    }
+
+    /**
+     * @return max number of retries of a query rejected by FLOOD_WAIT
+     */
+    int maxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @return current rate of the function type, queries per second, 0 if not limited
+     */
+    double rateOf(Class<?> functionType) {
+        return buckets.get(functionType).rate();
+    }
+
+    /**
+     * Parses the wait time of FLOOD_WAIT errors, e.g. {@code 429: Too Many Requests: retry after 10}
+     * or {@code 420: FLOOD_WAIT_10}.
+     *
+     * @param error error returned by TDLib
+     * @return wait time in nanoseconds or -1 if it isn't a FLOOD_WAIT error
+     */
+    static long retryAfterNanos(TdApi.Error error) {
+        if ((error.code != 429 && error.code != 420) || error.message == null) {
+            return -1;
+        }
+        int start = error.message.indexOf(RETRY_AFTER);
+        if (start >= 0) {
+            start += RETRY_AFTER.length();
+        } else if ((start = error.message.indexOf(FLOOD_WAIT)) >= 0) {
+            start += FLOOD_WAIT.length();
+        } else {
+            return -1;
+        }
+        long seconds = 0;
+        int end = start;
+        while (end < error.message.length() && Character.isDigit(error.message.charAt(end)) && end - start < 9) {
+            seconds = seconds * 10 + (error.message.charAt(end++) - '0');
+        }
+        return end > start ? TimeUnit.SECONDS.toNanos(seconds) : -1;
+    }
+
+    private static final class Bucket {
+
+        private final String function;
+
+        private final double maxRate;
+
+        private final int burst;
+
+        private double rate;
+
+        private long nextFree;
+
+        private long pausedUntil;
+
+        Bucket(String function, double maxRate, int burst) {
+            this.function = function;
+            this.maxRate = Math.max(maxRate, 0);
+            this.burst = burst;
+            this.rate = this.maxRate;
+            this.nextFree = this.pausedUntil = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        }
+
+        synchronized long reserve(long now) {
+            if (rate == 0) {
+                return Math.max(pausedUntil - now, 0);
+            }
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            long earliest = Math.max(now - interval * (burst - 1), pausedUntil);
+            if (nextFree < earliest) {
+                nextFree = earliest;
+            }
+            long delay = Math.max(nextFree - now, 0);
+            nextFree += interval;
+            return delay;
+        }
+
+        synchronized void onSuccess() {
+            if (rate > 0 && rate < maxRate) {
+                rate = Math.min(maxRate, rate + Math.min(1 / rate, 1));
+            }
+        }
+
+        synchronized void onFloodWait(long now, long waitNanos) {
+            if (pausedUntil > now) {
+                // queries reserved before the pause were rejected by the same FLOOD_WAIT
+                return;
+            }
+            pausedUntil = now + waitNanos;
+            if (rate > 0) {
+                rate = Math.max(MIN_RATE, rate / 2);
+            }
+            log.warn("FLOOD_WAIT of {}, queries are paused for {} s, rate is decreased to {} per second",
+                    function, TimeUnit.NANOSECONDS.toSeconds(waitNanos), rate);
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+    }
+
+}
@@ -1,24 +1,48 @@
 package dev.voroby.springframework.telegram.client;
 
+import dev.voroby.springframework.telegram.client.simulator.TdlibSimulator;
 import dev.voroby.springframework.telegram.client.templates.response.Response;
+import dev.voroby.springframework.telegram.client.updates.BatchUpdateListener;
 import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import dev.voroby.springframework.telegram.client.updates.UpdateAuthorizationState;
 import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import dev.voroby.springframework.telegram.client.updates.UpdateSubscription;
 import dev.voroby.springframework.telegram.exception.TelegramClientConfigurationException;
 import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
+import dev.voroby.springframework.telegram.exception.TelegramClientTimeoutException;
 import dev.voroby.springframework.telegram.properties.TelegramProperties;
 import jakarta.annotation.PreDestroy;
 import org.drinkless.tdlib.Client;
 import org.drinkless.tdlib.TdApi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.support.DefaultLifecycleProcessor;
+import org.springframework.core.SpringProperties;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.springframework.util.StringUtils.hasText;
 
@@ -27,16 +51,74 @@ import static org.springframework.util.StringUtils.hasText;
  *
  * @author Pavel Vorobyev
  */
-public class TelegramClient {
+public class TelegramClient implements AutoCloseable {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    /*
+     * TDLib answers queries of a closing client with the same error
+     */
+    private static final int ABORTED_CODE = 500;
+
+    private static final TimeoutWheel timeoutWheel = TimeoutWheel.shared();
+
+    private static final int TIMEOUT_CALLBACK_QUEUE_CAPACITY = 10_000;
+
+    /*
+     * Runs callbacks of expired queries, so result handlers and dependent stages of futures
+     * never run on the timeout wheel thread. Bounded, so a timeout storm can't spawn a thread per callback:
+     * when the queue is full the wheel thread runs the callback itself
+     */
+    private static final Executor timeoutCallbacks = timeoutCallbackExecutor();
 
     private final Logger log = LoggerFactory.getLogger(TelegramClient.class);
 
-    private final Client client;
+    /*
+     * Assigned when the native client is created, updates may be received and handled before that
+     */
+    private volatile Client client;
+
+    private final CountDownLatch clientCreated = new CountDownLatch(1);
 
     private final Client.ResultHandler defaultHandler;
 
     private final ClientAuthorizationState clientAuthorizationState;
 
+    private final ClassValue<Duration> functionTimeouts;
+
+    private final UpdateDispatcher updateDispatcher;
+
+    private final TelegramClientObserver observer;
+
+    private final RateLimiter rateLimiter;
+
+    private final QueryCoalescer<SharedQuery<?>> coalescer;
+
+    private final TelegramObjectCache objectCache;
+
+    private final QueryLanes lanes;
+
+    private final CoreUpdateHandler updateHandler;
+
+    private final Duration drainTimeout;
+
+    private final Duration closeTimeout;
+
+    /*
+     * Queries of the client waiting for the result, drained and failed on shutdown
+     */
+    private final Set<PendingQuery<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+
+    private volatile boolean closing;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     /**
      * @param properties TDlib client properties
      * @param notificationHandlers registered notifications handlers
@@ -47,10 +129,112 @@ public class TelegramClient {
                           Collection<UpdateNotificationListener<?>> notificationHandlers,
                           Client.ResultHandler defaultHandler,
                           ClientAuthorizationState clientAuthorizationState) {
+        this(properties, notificationHandlers, List.of(), defaultHandler, clientAuthorizationState,
+                TelegramClientObserver.NOOP);
+    }
+
+    /**
+     * @param properties TDlib client properties
+     * @param notificationHandlers registered notifications handlers
+     * @param batchNotificationHandlers registered handlers of update batches
+     * @param defaultHandler default handler for unhandled events
+     * @param clientAuthorizationState authorization state of the client
+     * @param observer observer of queries and updates
+     */
+    public TelegramClient(TelegramProperties properties,
+                          Collection<UpdateNotificationListener<?>> notificationHandlers,
+                          Collection<BatchUpdateListener<?>> batchNotificationHandlers,
+                          Client.ResultHandler defaultHandler,
+                          ClientAuthorizationState clientAuthorizationState,
+                          TelegramClientObserver observer) {
+        this(properties, notificationHandlers, batchNotificationHandlers, defaultHandler, clientAuthorizationState,
+                observer, false);
+    }
+
+    private TelegramClient(TelegramProperties properties,
+                           Collection<UpdateNotificationListener<?>> notificationHandlers,
+                           Collection<BatchUpdateListener<?>> batchNotificationHandlers,
+                           Client.ResultHandler defaultHandler,
+                           ClientAuthorizationState clientAuthorizationState,
+                           TelegramClientObserver observer,
+                           boolean handleAuthorization) {
         this.defaultHandler = defaultHandler;
         checkProperties(properties);
         this.clientAuthorizationState = clientAuthorizationState;
-        this.client = initializeNativeClient(properties, notificationHandlers);
+        this.functionTimeouts = functionTimeouts(properties.timeouts());
+        this.updateDispatcher = UpdateDispatcher.create(properties.dispatch());
+        this.observer = Objects.requireNonNull(observer);
+        this.rateLimiter = RateLimiter.create(properties.rateLimit());
+        this.coalescer = QueryCoalescer.create(properties.coalescing());
+        this.objectCache = TelegramObjectCache.create(properties.cache());
+        this.lanes = QueryLanes.create(properties.lanes());
+        TelegramProperties.Shutdown shutdown = properties.shutdown();
+        this.drainTimeout = shutdown != null && shutdown.drainTimeout() != null ?
+                shutdown.drainTimeout() : DEFAULT_DRAIN_TIMEOUT;
+        this.closeTimeout = shutdown != null && shutdown.closeTimeout() != null ?
+                shutdown.closeTimeout() : DEFAULT_CLOSE_TIMEOUT;
+        if (handleAuthorization) {
+            var handlers = new ArrayList<UpdateNotificationListener<?>>(notificationHandlers.size() + 1);
+            handlers.add(new UpdateAuthorizationState(properties, this, clientAuthorizationState));
+            handlers.addAll(notificationHandlers);
+            notificationHandlers = handlers;
+        }
+        this.updateHandler = CoreUpdateHandler.builder(notificationHandlers, defaultHandler)
+                .batchNotifications(batchNotificationHandlers)
+                .dispatcher(updateDispatcher)
+                .observer(observer)
+                .objectCache(objectCache)
+                .conflator(UpdateConflator.create(properties.conflation(), timeoutWheel))
+                .build();
+        try {
+            this.client = initializeNativeClient(properties);
+        } finally {
+            // queries sent by listeners of early updates must not wait forever if the client isn't created
+            clientCreated.countDown();
+        }
+        observer.bind(this);
+    }
+
+    /**
+     * Creates a client of a Telegram account outside the application context, e.g. to run several accounts
+     * in one JVM. Clients share the TDLib thread, but every client has its own listeners and authorization state,
+     * authorization updates are handled by the client itself. Every account needs its own properties
+     * with distinct database and files directories. The client must be closed by {@link #close()}
+     * when the account is no longer needed.
+     *
+     * @param properties TDlib client properties of the account
+     * @param notificationHandlers notifications handlers of the account
+     * @param defaultHandler default handler for unhandled events
+     * @param clientAuthorizationState authorization state of the account
+     * @return {@link TelegramClient}
+     */
+    public static TelegramClient create(TelegramProperties properties,
+                                        Collection<UpdateNotificationListener<?>> notificationHandlers,
+                                        Client.ResultHandler defaultHandler,
+                                        ClientAuthorizationState clientAuthorizationState) {
+        return new TelegramClient(properties, notificationHandlers, List.of(), defaultHandler,
+                clientAuthorizationState, TelegramClientObserver.NOOP, true);
+    }
+
+    private static Executor timeoutCallbackExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        var saturated = new AtomicBoolean();
+        var executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(TIMEOUT_CALLBACK_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "TDLib timeout callback");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (saturated.compareAndSet(false, true)) {
+                        LoggerFactory.getLogger(TelegramClient.class)
+                                .warn("Timeout callbacks are saturated, callbacks run on the timeout wheel thread");
+                    }
+                    runnable.run();
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     private void checkProperties(TelegramProperties properties) {
@@ -122,7 +306,15 @@ public class TelegramClient {
         }
     }
 
-    private Client initializeNativeClient(TelegramProperties properties, Collection<UpdateNotificationListener<?>> notificationHandlers) {
+    private Client initializeNativeClient(TelegramProperties properties) {
+        TelegramProperties.Simulator simulator = properties.simulator();
+        if (simulator != null && simulator.enabled() && !(Client.transport() instanceof TdlibSimulator)) {
+            log.warn("TDLib simulator is enabled, queries are not sent to Telegram");
+            Client.setTransport(new TdlibSimulator(simulator));
+        } else if (isTrainingRun() && !(Client.transport() instanceof TdlibSimulator)) {
+            log.info("Training run, the context is stopped after refresh and TDLib is simulated");
+            Client.setTransport(new TdlibSimulator(null));
+        }
         var logVerbosityLevel = new TdApi.SetLogVerbosityLevel(properties.logVerbosityLevel());
         try {
             Client.execute(logVerbosityLevel);
@@ -140,56 +332,117 @@ public class TelegramClient {
         };
         Client.setLogMessageHandler(properties.logVerbosityLevel(), logMessageHandler);
 
-        return Client.create(new CoreUpdateHandler(notificationHandlers, defaultHandler), null, null);
+        return Client.create(updateHandler, null, null);
+    }
+
+    /*
+     * CDS and AOT training runs (-Dspring.context.exit=onRefresh) load the classes of the application and stop,
+     * the account must not be authorized by them
+     */
+    private static boolean isTrainingRun() {
+        return DefaultLifecycleProcessor.ON_REFRESH_VALUE.equalsIgnoreCase(
+                SpringProperties.getProperty(DefaultLifecycleProcessor.EXIT_PROPERTY_NAME));
     }
 
     /**
-     * {@link TelegramClient} shutdown hook.
-     * Properly closing the client.
+     * {@link TelegramClient} shutdown hook, closes the clients created by {@link #create} as well.
+     * Properly closing the client: new queries are rejected, queries in flight are awaited no longer than
+     * the drain timeout and the rest fail with error code 500, then TDLib is closed and the method returns
+     * as soon as the client reaches {@link TdApi.AuthorizationStateClosed} or the close timeout expires.
+     * Subsequent calls return immediately.
      */
+    @Override
     @PreDestroy
+    public void close() {
+        try {
+            cleanUp();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     void cleanUp() throws InterruptedException {
-        send(new TdApi.Close());
-        Instant startAwait = Instant.now();
-        while (!clientAuthorizationState.isStateClosed() && startAwait.plusSeconds(30).isAfter(Instant.now())) {
-            TimeUnit.MILLISECONDS.sleep(200);
+        if (!closed.compareAndSet(false, true)) {
+            return;
         }
-        if (!clientAuthorizationState.isStateClosed()) {
+        if (!drain()) {
+            log.warn("{} queries didn't finish in {}, aborting them", inFlight.size(), drainTimeout);
+            for (PendingQuery<?> pendingQuery : inFlight) {
+                pendingQuery.abort("Request aborted, the client is closing");
+            }
+        }
+        var close = new TdApi.Close();
+        client.send(close, result -> {
+            if (result instanceof TdApi.Error error) {
+                logError(close, error);
+            }
+        });
+        if (!await(clientAuthorizationState.closed(), closeTimeout)) {
             log.warn("Closed, but TDLib client isn't in its final state");
         }
+        updateDispatcher.close();
         log.info("Goodbye!");
     }
 
+    private boolean drain() throws InterruptedException {
+        closing = true;
+        if (inFlight.isEmpty()) {
+            drained.complete(null);
+        }
+        return await(drained, drainTimeout);
+    }
+
+    private static boolean await(CompletableFuture<Void> signal, Duration timeout) throws InterruptedException {
+        try {
+            signal.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new TelegramClientTdApiException(e.getMessage(), e.getCause());
+        }
+    }
+
     /**
      * Sends a request to the TDLib.
+     * Waits for the result no longer than the timeout configured for the query type.
      *
      * @param query object representing a query to the TDLib.
      * @throws NullPointerException if query is null.
      * @return {@link Response<T>} response.
      */
-    @SuppressWarnings("unchecked")
     public <T extends TdApi.Object> Response<T> send(TdApi.Function<T> query) {
         Objects.requireNonNull(query);
-        var ref = new AtomicReference<TdApi.Object>();
-        client.send(query, ref::set);
-        var sent = Instant.now();
-        while (ref.get() == null &&
-                sent.plus(30, ChronoUnit.SECONDS).isAfter(Instant.now())) {
-            /*wait for result*/
-            try {
-                TimeUnit.MILLISECONDS.sleep(5);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e.getMessage());
-            }
-        }
-
-        TdApi.Object obj = ref.get();
-        if (obj == null) {
-            var error = new TdApi.Error(0, "TDLib request timeout.");
-            logError(query, error);
-            return new Response<>(null, error);
-        } else if (obj instanceof TdApi.Error err) {
+        return send(query, timeoutOf(query));
+    }
+
+    /**
+     * Sends a request to the TDLib and waits for the result no longer than the timeout.
+     *
+     * @param query object representing a query to the TDLib.
+     * @param timeout deadline of the query, zero or negative to wait without a deadline.
+     * @throws NullPointerException if query or timeout is null.
+     * @return {@link Response<T>} response.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends TdApi.Object> Response<T> send(TdApi.Function<T> query, Duration timeout) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(timeout);
+        var result = new CompletableFuture<TdApi.Object>();
+        submit(new PendingQuery<>(query, timeout) {
+            @Override
+            void onResult(T obj, TdApi.Error error) {
+                result.complete(error != null ? error : obj);
+            }
+
+            @Override
+            void onTimeout(TelegramClientTimeoutException timeoutException) {
+                result.complete(timeoutException.getError());
+            }
+        });
+
+        TdApi.Object obj = awaitResult(result);
+        if (obj instanceof TdApi.Error err) {
             logError(query, err);
             return new Response<>(null, err);
         }
@@ -197,9 +450,29 @@ public class TelegramClient {
         return new Response<>((T) obj, null);
     }
 
+    /**
+     * Blocks the caller until the result handler completes the future.
+     * The caller is parked rather than polling, so it wakes up as soon as the TDLib thread delivers the result.
+     * Parking on a {@link CompletableFuture} doesn't pin a carrier thread when the caller is a virtual thread.
+     *
+     * @param result future completed by the result handler or by the request deadline
+     * @return result of the query
+     */
+    static TdApi.Object awaitResult(CompletableFuture<TdApi.Object> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw new TelegramClientTdApiException(e.getMessage(), e.getCause());
+        }
+    }
+
     /**
      * Sends a request to the TDLib asynchronously.
-     * If this stage completes exceptionally you can handle cause {@link TelegramClientTdApiException}
+     * If this stage completes exceptionally you can handle cause {@link TelegramClientTdApiException},
+     * {@link TelegramClientTimeoutException} if TDLib didn't answer before the timeout configured for the query type.
      *
      * @throws NullPointerException if query is null.
      * @param query object representing a query to the TDLib.
@@ -207,13 +480,38 @@ public class TelegramClient {
      */
     public <T extends TdApi.Object> CompletableFuture<Response<T>> sendAsync(TdApi.Function<T> query) {
         Objects.requireNonNull(query);
+        return sendAsync(query, timeoutOf(query));
+    }
+
+    /**
+     * Sends a request to the TDLib asynchronously.
+     * If this stage completes exceptionally you can handle cause {@link TelegramClientTdApiException},
+     * {@link TelegramClientTimeoutException} if TDLib didn't answer before the timeout.
+     *
+     * @throws NullPointerException if query or timeout is null.
+     * @param query object representing a query to the TDLib.
+     * @param timeout deadline of the query, zero or negative to wait without a deadline.
+     * @return {@link CompletableFuture<Response>} response from TDLib.
+     */
+    public <T extends TdApi.Object> CompletableFuture<Response<T>> sendAsync(TdApi.Function<T> query, Duration timeout) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(timeout);
         var future = new CompletableFuture<Response<T>>();
-        sendWithCallback(query, ((obj, error) -> {
-            if (error != null) {
-                logError(query, error);
+        submit(new PendingQuery<>(query, timeout) {
+            @Override
+            void onResult(T obj, TdApi.Error error) {
+                if (error != null) {
+                    logError(query, error);
+                }
+                future.complete(new Response<>(obj, error));
             }
-            future.complete(new Response<>(obj, error));
-        }));
+
+            @Override
+            void onTimeout(TelegramClientTimeoutException timeoutException) {
+                logError(query, timeoutException.getError());
+                future.completeExceptionally(timeoutException);
+            }
+        });
         return future;
     }
 
@@ -231,22 +529,688 @@ public class TelegramClient {
 
     /**
      * Sends a request to the TDLib with callback.
+     * If TDLib didn't answer before the timeout configured for the query type,
+     * the callback receives the error of {@link TelegramClientTimeoutException}.
      *
      * @param query object representing a query to the TDLib
      * @param resultHandler Result handler for results of queries with callback to TDLib
      * @param <T> The object type that is returned by the function
      */
-    @SuppressWarnings("unchecked")
     public <T extends TdApi.Object> void sendWithCallback(TdApi.Function<T> query,
                                                           QueryResultHandler<T> resultHandler) {
         Objects.requireNonNull(query);
-        client.send(query, object -> {
-            if (object instanceof TdApi.Error err) {
-                resultHandler.onResult(null, err);
-            } else {
-                resultHandler.onResult((T) object, null);
+        sendWithCallback(query, resultHandler, timeoutOf(query));
+    }
+
+    /**
+     * Sends a request to the TDLib with callback.
+     * If TDLib didn't answer before the timeout, the callback receives the error of {@link TelegramClientTimeoutException}
+     * on a timeout callback thread.
+     *
+     * @param query object representing a query to the TDLib
+     * @param resultHandler Result handler for results of queries with callback to TDLib
+     * @param timeout deadline of the query, zero or negative to wait without a deadline
+     * @param <T> The object type that is returned by the function
+     */
+    public <T extends TdApi.Object> void sendWithCallback(TdApi.Function<T> query,
+                                                          QueryResultHandler<T> resultHandler,
+                                                          Duration timeout) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(timeout);
+        submit(new PendingQuery<>(query, timeout) {
+            @Override
+            void onResult(T obj, TdApi.Error error) {
+                resultHandler.onResult(obj, error);
             }
+
+            @Override
+            void onTimeout(TelegramClientTimeoutException timeoutException) {
+                resultHandler.onResult(null, timeoutException.getError());
+            }
+        });
+    }
+
+    /**
+     * Sends the queries to the TDLib back-to-back, without waiting for the results in between.
+     * Every query waits for the result no longer than the timeout configured for its type,
+     * a failed query doesn't fail the others, its error is its response.
+     *
+     * @throws NullPointerException if queries or any of them is null.
+     * @param queries objects representing queries to the TDLib.
+     * @param <T> The object type that is returned by the functions
+     * @return {@link CompletableFuture} of responses in the order of queries.
+     */
+    public <T extends TdApi.Object> CompletableFuture<List<Response<T>>> sendAll(
+            List<? extends TdApi.Function<T>> queries) {
+        return sendAll(queries, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sends the queries to the TDLib back-to-back with at most {@code maxInFlight} queries waiting for the result.
+     * Every query waits for the result no longer than the timeout configured for its type,
+     * a failed query doesn't fail the others, its error is its response.
+     *
+     * @throws NullPointerException if queries or any of them is null.
+     * @throws IllegalArgumentException if maxInFlight isn't positive.
+     * @param queries objects representing queries to the TDLib.
+     * @param maxInFlight max number of queries waiting for the result.
+     * @param <T> The object type that is returned by the functions
+     * @return {@link CompletableFuture} of responses in the order of queries.
+     */
+    public <T extends TdApi.Object> CompletableFuture<List<Response<T>>> sendAll(
+            List<? extends TdApi.Function<T>> queries, int maxInFlight) {
+        var batch = new Batch<T>(List.copyOf(queries), maxInFlight, null);
+        batch.drain();
+        return batch.result.thenApply(batch::responses);
+    }
+
+    /**
+     * Sends the queries to the TDLib back-to-back with at most {@code maxInFlight} queries waiting for the result
+     * and passes the responses to the consumer in the order of queries, as soon as the responses
+     * of all preceding queries are passed. Passed responses aren't retained, so the batch may be large.
+     * The consumer is invoked by one thread at a time, often the TDLib thread, so it must not block.
+     * If the consumer throws, the future completes exceptionally and the remaining queries aren't sent.
+     *
+     * @throws NullPointerException if queries, any of them or consumer is null.
+     * @throws IllegalArgumentException if maxInFlight isn't positive.
+     * @param queries objects representing queries to the TDLib.
+     * @param maxInFlight max number of queries waiting for the result.
+     * @param consumer consumer of responses.
+     * @param <T> The object type that is returned by the functions
+     * @return {@link CompletableFuture} completed after the response of the last query is passed.
+     */
+    public <T extends TdApi.Object> CompletableFuture<Void> sendAll(List<? extends TdApi.Function<T>> queries,
+                                                                    int maxInFlight,
+                                                                    Consumer<? super Response<T>> consumer) {
+        Objects.requireNonNull(consumer);
+        var batch = new Batch<T>(List.copyOf(queries), maxInFlight, consumer);
+        batch.drain();
+        return batch.result;
+    }
+
+    /**
+     * Number of queries of the client waiting for the result.
+     * Lock-free, so it may be called often.
+     *
+     * @return number of pending queries
+     */
+    public int getPendingQueryCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Snapshot of the state of the client, e.g. for health checks. Lock-free, so it may be called often.
+     *
+     * @return {@link TelegramClientStatus}
+     */
+    public TelegramClientStatus getStatus() {
+        long lastUpdateNanos = updateHandler.lastUpdateNanos();
+        return new TelegramClientStatus(Client.isReceiverAlive(), getPendingQueryCount(),
+                lastUpdateNanos != 0 ? Duration.ofNanos(System.nanoTime() - lastUpdateNanos) : null,
+                updateHandler.connectionState());
+    }
+
+    /**
+     * Statuses of the bounded update queues of listeners. Queues exist only if updates are dispatched
+     * off the TDLib thread, see {@link TelegramProperties.Dispatch}.
+     *
+     * @return list of {@link UpdateQueueStatus}
+     */
+    public List<UpdateQueueStatus> getUpdateQueues() {
+        return updateDispatcher.queues().stream()
+                .map(queue -> new UpdateQueueStatus(queue.name(), queue.capacity(), queue.depth(), queue.dropped()))
+                .toList();
+    }
+
+    /**
+     * Subscribes the consumer to updates of the type, e.g. to bridge updates into a reactive stream.
+     * Unlike {@link UpdateNotificationListener}s, subscriptions are added and removed while the client is running.
+     * The consumer is invoked on the TDLib thread before the listeners, so it must not block.
+     *
+     * @throws NullPointerException if type or consumer is null.
+     * @param type type of updates
+     * @param consumer consumer of updates
+     * @param <T> type of updates
+     * @return {@link UpdateSubscription}, closing it stops the updates
+     */
+    public <T extends TdApi.Update> UpdateSubscription subscribe(Class<T> type, Consumer<? super T> consumer) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(consumer);
+        return updateHandler.subscribe(type, consumer);
+    }
+
+    /**
+     * Runs the action with queries sent by the calling thread in the lane, e.g. to send background work
+     * in {@link QueryLane#BULK}. Lanes exist only if they are enabled, see {@link TelegramProperties.Lanes}.
+     *
+     * @throws NullPointerException if lane or action is null.
+     * @param lane lane of queries
+     * @param action action sending queries
+     * @param <R> type of the result
+     * @return result of the action
+     */
+    public <R> R inLane(QueryLane lane, Supplier<R> action) {
+        Objects.requireNonNull(lane);
+        Objects.requireNonNull(action);
+        return lanes != null ? QueryLanes.callIn(lane, action) : action.get();
+    }
+
+    /**
+     * Runs the action with queries sent by the calling thread in the lane, e.g. to send background work
+     * in {@link QueryLane#BULK}. Lanes exist only if they are enabled, see {@link TelegramProperties.Lanes}.
+     *
+     * @throws NullPointerException if lane or action is null.
+     * @param lane lane of queries
+     * @param action action sending queries
+     */
+    public void inLane(QueryLane lane, Runnable action) {
+        Objects.requireNonNull(action);
+        inLane(lane, () -> {
+            action.run();
+            return null;
         });
     }
 
+    /**
+     * Statuses of the priority lanes of queries, see {@link TelegramProperties.Lanes}.
+     *
+     * @return list of {@link QueryLaneStatus} in the order of priority, empty if lanes are disabled
+     */
+    public List<QueryLaneStatus> getQueryLanes() {
+        return lanes != null ? lanes.statuses() : List.of();
+    }
+
+    /**
+     * Cache of chats, users and supergroups kept coherent by TDLib updates,
+     * see {@link TelegramProperties.Cache}.
+     *
+     * @return {@link TelegramObjectCache} or empty if caching is disabled
+     */
+    public Optional<TelegramObjectCache> getObjectCache() {
+        return Optional.ofNullable(objectCache);
+    }
+
+    private Duration timeoutOf(TdApi.Function<?> query) {
+        return functionTimeouts.get(query.getClass());
+    }
+
+    private void submit(PendingQuery<?> pendingQuery) {
+        inFlight.add(pendingQuery);
+        if (closing) {
+            pendingQuery.complete(new TdApi.Error(ABORTED_CODE, "Request rejected, the client is closing"));
+            return;
+        }
+        if (coalescer == null || pendingQuery instanceof SharedQuery || !coalesce(pendingQuery)) {
+            if (lanes != null) {
+                lanes.submit(lanes.laneOf(pendingQuery.query), pendingQuery);
+            } else {
+                sendLimited(pendingQuery);
+            }
+        }
+        if (!pendingQuery.timeout.isNegative() && !pendingQuery.timeout.isZero()) {
+            timeoutWheel.schedule(pendingQuery, pendingQuery.timeout.toNanos());
+        }
+    }
+
+    /*
+     * Joins the in-flight identical query or sends a new shared query, the pending query itself is never sent
+     */
+    private boolean coalesce(PendingQuery<?> pendingQuery) {
+        QueryCoalescer.Key key = coalescer.keyOf(pendingQuery.query);
+        if (key == null) {
+            return false;
+        }
+        while (true) {
+            SharedQuery<?> inFlight = coalescer.get(key);
+            if (inFlight == null) {
+                var sharedQuery = new SharedQuery<>(key, pendingQuery);
+                if (coalescer.putIfAbsent(key, sharedQuery) == null) {
+                    submit(sharedQuery);
+                    return true;
+                }
+            } else if (inFlight.join(pendingQuery)) {
+                return true;
+            } else {
+                coalescer.remove(key, inFlight);
+            }
+        }
+    }
+
+    private void sendLimited(PendingQuery<?> pendingQuery) {
+        long delay = rateLimiter != null ? rateLimiter.reserve(pendingQuery.query) : 0;
+        if (delay > 0) {
+            timeoutWheel.schedule(new DelayedQuery(pendingQuery), delay);
+        } else {
+            send(pendingQuery);
+        }
+    }
+
+    private void send(PendingQuery<?> pendingQuery) {
+        Client client = this.client;
+        if (client == null) {
+            client = awaitClient();
+        }
+        client.send(pendingQuery.query, pendingQuery.queryId, pendingQuery);
+        if (!pendingQuery.isPending()) {
+            // expired while the handler was published, the deadline couldn't remove it
+            client.cancel(pendingQuery.queryId);
+        }
+    }
+
+    private Client awaitClient() {
+        try {
+            clientCreated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramClientConfigurationException("Interrupted while the native client is created");
+        }
+        Client client = this.client;
+        if (client == null) {
+            throw new TelegramClientConfigurationException("Native client is not created");
+        }
+        return client;
+    }
+
+    private static ClassValue<Duration> functionTimeouts(TelegramProperties.Timeouts timeouts) {
+        Duration defaultTimeout = timeouts != null && timeouts.defaultTimeout() != null ?
+                timeouts.defaultTimeout() : DEFAULT_TIMEOUT;
+        Map<String, Duration> functions = timeouts != null && timeouts.functions() != null ?
+                Map.copyOf(timeouts.functions()) : Map.of();
+        return new ClassValue<>() {
+            @Override
+            protected Duration computeValue(Class<?> type) {
+                return functions.getOrDefault(type.getSimpleName(), defaultTimeout);
+            }
+        };
+    }
+
+    /**
+     * Query waiting for the result from TDLib.
+     * Exactly one of the callbacks is invoked: with the result on the TDLib thread
+     * or with the timeout exception on a timeout callback thread, after the pending handler is removed from {@link Client}.
+     * The identifier of the query is reserved up front, so an expired query is removed from {@link Client}
+     * even if it hasn't been sent yet.
+     *
+     * @param <T> The object type that is returned by the function
+     */
+    private abstract class PendingQuery<T extends TdApi.Object> extends TimeoutWheel.Timeout
+            implements Client.ResultHandler, QueryLanes.Query {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<PendingQuery, QueryLanes.Lane> LANE =
+                AtomicReferenceFieldUpdater.newUpdater(PendingQuery.class, QueryLanes.Lane.class, "lane");
+
+        private final TdApi.Function<T> query;
+
+        private final Duration timeout;
+
+        private final long sentAt = System.nanoTime();
+
+        private final long queryId = Client.nextQueryId();
+
+        /*
+         * Lane of the admitted query, released exactly once by whoever takes it
+         */
+        private volatile QueryLanes.Lane lane;
+
+        /*
+         * Shared query this query waits for, if the query is coalesced
+         */
+        private volatile SharedQuery<?> joined;
+
+        private int retries;
+
+        PendingQuery(TdApi.Function<T> query, Duration timeout) {
+            this.query = query;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public final void onResult(TdApi.Object object) {
+            if (rateLimiter != null) {
+                if (!(object instanceof TdApi.Error error)) {
+                    rateLimiter.onSuccess(query);
+                } else if (retryAfterFloodWait(error)) {
+                    return;
+                }
+            }
+            if (objectCache != null) {
+                objectCache.onResult(object);
+            }
+            complete(object);
+        }
+
+        @SuppressWarnings("unchecked")
+        final void complete(TdApi.Object object) {
+            if (cancel()) {
+                finished();
+                observer().onResult(query, object, System.nanoTime() - sentAt);
+                if (object instanceof TdApi.Error err) {
+                    onResult(null, err);
+                } else {
+                    onResult((T) object, null);
+                }
+            }
+        }
+
+        /*
+         * Called on the TDLib thread, the query is sent again through the rate limiter
+         * if it may still be answered before its deadline
+         */
+        private boolean retryAfterFloodWait(TdApi.Error error) {
+            long waitNanos = RateLimiter.retryAfterNanos(error);
+            if (waitNanos < 0) {
+                return false;
+            }
+            rateLimiter.onFloodWait(query, waitNanos);
+            boolean hasDeadline = !timeout.isNegative() && !timeout.isZero();
+            if (retries >= rateLimiter.maxRetries() || !isPending() ||
+                    hasDeadline && System.nanoTime() + waitNanos - sentAt >= timeout.toNanos()) {
+                return false;
+            }
+            retries++;
+            timeoutWheel.schedule(new DelayedQuery(this), rateLimiter.reserve(query));
+            return true;
+        }
+
+        @Override
+        final void expire() {
+            cancelHandler();
+            finished();
+            SharedQuery<?> sharedQuery = joined;
+            if (sharedQuery != null) {
+                sharedQuery.detach(this);
+            }
+            timeoutCallbacks.execute(this::timedOut);
+        }
+
+        final void completeWithTimeout() {
+            if (cancel()) {
+                finished();
+                timedOut();
+            }
+        }
+
+        /*
+         * Fails the query on shutdown, identical queries sharing it receive the same error
+         */
+        final void abort(String message) {
+            cancelHandler();
+            complete(new TdApi.Error(ABORTED_CODE, message));
+        }
+
+        /*
+         * Drops the query without a result, nobody waits for it anymore
+         */
+        final void abandon() {
+            if (cancel()) {
+                cancelHandler();
+                finished();
+            }
+        }
+
+        private void cancelHandler() {
+            Client client = TelegramClient.this.client;
+            if (client != null) {
+                client.cancel(queryId);
+            }
+        }
+
+        @Override
+        public final boolean isExpired() {
+            return !isPending();
+        }
+
+        /*
+         * The query may expire between the admission and the assignment of the lane,
+         * then the lane is released here instead of by finished()
+         */
+        @Override
+        public final void admit(QueryLanes.Lane lane) {
+            this.lane = lane;
+            if (isPending()) {
+                sendLimited(this);
+            } else {
+                releaseLane();
+            }
+        }
+
+        @Override
+        public final void reject(String reason) {
+            complete(new TdApi.Error(429, reason));
+        }
+
+        private void releaseLane() {
+            if (lane == null) {
+                return;
+            }
+            QueryLanes.Lane admitted = LANE.getAndSet(this, null);
+            if (admitted != null) {
+                lanes.release(admitted);
+            }
+        }
+
+        private void finished() {
+            releaseLane();
+            inFlight.remove(this);
+            if (closing && inFlight.isEmpty()) {
+                drained.complete(null);
+            }
+        }
+
+        private void timedOut() {
+            observer().onTimeout(query, System.nanoTime() - sentAt);
+            onTimeout(new TelegramClientTimeoutException(query, timeout));
+        }
+
+        TelegramClientObserver observer() {
+            return observer;
+        }
+
+        abstract void onResult(T obj, TdApi.Error error);
+
+        abstract void onTimeout(TelegramClientTimeoutException timeoutException);
+    }
+
+    /**
+     * Sends the query delayed by the rate limiter, unless the query has already expired.
+     */
+    private final class DelayedQuery extends TimeoutWheel.Timeout {
+
+        private final PendingQuery<?> pendingQuery;
+
+        DelayedQuery(PendingQuery<?> pendingQuery) {
+            this.pendingQuery = pendingQuery;
+        }
+
+        @Override
+        void expire() {
+            if (pendingQuery.isPending()) {
+                send(pendingQuery);
+            }
+        }
+    }
+
+    /**
+     * Query sent to TDLib on behalf of identical pending queries, which receive its result.
+     * The shared query is observed through its pending queries only. It has no deadline of its own:
+     * every pending query expires on its own deadline and is detached, and the shared query is abandoned
+     * when the last pending query is detached.
+     */
+    private final class SharedQuery<T extends TdApi.Object> extends PendingQuery<T> {
+
+        private final QueryCoalescer.Key key;
+
+        private final List<PendingQuery<?>> pendingQueries = new ArrayList<>(2);
+
+        private boolean done;
+
+        @SuppressWarnings("unchecked")
+        SharedQuery(QueryCoalescer.Key key, PendingQuery<?> pendingQuery) {
+            super((TdApi.Function<T>) pendingQuery.query, Duration.ZERO);
+            this.key = key;
+            pendingQueries.add(pendingQuery);
+            pendingQuery.joined = this;
+        }
+
+        synchronized boolean join(PendingQuery<?> pendingQuery) {
+            if (!done) {
+                pendingQueries.add(pendingQuery);
+                pendingQuery.joined = this;
+            }
+            return !done;
+        }
+
+        void detach(PendingQuery<?> pendingQuery) {
+            synchronized (this) {
+                pendingQueries.remove(pendingQuery);
+                if (done || !pendingQueries.isEmpty()) {
+                    return;
+                }
+                done = true;
+                coalescer.remove(key, this);
+            }
+            abandon();
+        }
+
+        private synchronized List<PendingQuery<?>> finish() {
+            done = true;
+            coalescer.remove(key, this);
+            return pendingQueries;
+        }
+
+        @Override
+        void onResult(T obj, TdApi.Error error) {
+            TdApi.Object result = error != null ? error : obj;
+            for (PendingQuery<?> pendingQuery : finish()) {
+                pendingQuery.complete(result);
+            }
+        }
+
+        @Override
+        void onTimeout(TelegramClientTimeoutException timeoutException) {
+            for (PendingQuery<?> pendingQuery : finish()) {
+                pendingQuery.completeWithTimeout();
+            }
+        }
+
+        @Override
+        TelegramClientObserver observer() {
+            return TelegramClientObserver.NOOP;
+        }
+    }
+
+    /**
+     * Queries sent together. Responses are kept in one array in the order of queries, queries are sent
+     * and responses are passed by the thread draining the batch, a response arriving meanwhile is picked up
+     * by the draining thread instead of recursion.
+     *
+     * @param <T> The object type that is returned by the functions
+     */
+    private final class Batch<T extends TdApi.Object> {
+
+        private final List<? extends TdApi.Function<T>> queries;
+
+        private final int maxInFlight;
+
+        private final Consumer<? super Response<T>> consumer;
+
+        /*
+         * Written before the completed counter is incremented, read by the draining thread
+         */
+        private final Response<T>[] responses;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final AtomicInteger completed = new AtomicInteger();
+
+        /*
+         * Next query to send and next response to pass, accessed by the draining thread only
+         */
+        private int next;
+
+        private int passed;
+
+        @SuppressWarnings("unchecked")
+        Batch(List<? extends TdApi.Function<T>> queries, int maxInFlight, Consumer<? super Response<T>> consumer) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("Max number of queries in flight must be positive: " + maxInFlight);
+            }
+            this.queries = queries;
+            this.maxInFlight = maxInFlight;
+            this.consumer = consumer;
+            this.responses = new Response[queries.size()];
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                passResponses();
+                while (!result.isDone() && next < queries.size() && next - completed.get() < maxInFlight) {
+                    TdApi.Function<T> query = queries.get(next);
+                    submit(new BatchQuery<>(this, next++, query, timeoutOf(query)));
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void passResponses() {
+            while (!result.isDone() && passed < responses.length && responses[passed] != null) {
+                if (consumer != null) {
+                    try {
+                        consumer.accept(responses[passed]);
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                    responses[passed] = null;
+                }
+                passed++;
+            }
+            if (passed == responses.length) {
+                result.complete(null);
+            }
+        }
+
+        void onResponse(int index, Response<T> response) {
+            responses[index] = response;
+            completed.incrementAndGet();
+            drain();
+        }
+
+        List<Response<T>> responses(Void ignored) {
+            return Collections.unmodifiableList(Arrays.asList(responses));
+        }
+    }
+
+    private final class BatchQuery<T extends TdApi.Object> extends PendingQuery<T> {
+
+        private final Batch<T> batch;
+
+        private final int index;
+
+        BatchQuery(Batch<T> batch, int index, TdApi.Function<T> query, Duration timeout) {
+            super(query, timeout);
+            this.batch = batch;
+            this.index = index;
+        }
+
+        @Override
+        void onResult(T obj, TdApi.Error error) {
+            if (error != null) {
+                logError(super.query, error);
+            }
+            batch.onResponse(index, new Response<>(obj, error));
+        }
+
+        @Override
+        void onTimeout(TelegramClientTimeoutException timeoutException) {
+            logError(super.query, timeoutException.getError());
+            batch.onResponse(index, new Response<>(null, timeoutException.getError()));
+        }
+    }
+
 }
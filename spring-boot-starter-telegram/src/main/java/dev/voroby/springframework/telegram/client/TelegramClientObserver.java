@@ -0,0 +1,49 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+
+/**
+ * Observer of the {@link TelegramClient} activity, e.g. for metrics.
+ * Callbacks are invoked on the TDLib and timeout callback threads, so they should be short and non-blocking.
+ *
+ * @author Pavel Vorobyev
+ */
+public interface TelegramClientObserver {
+
+    /**
+     * Observer which does nothing.
+     */
+    TelegramClientObserver NOOP = new TelegramClientObserver() {};
+
+    /**
+     * Called once the client is created.
+     *
+     * @param telegramClient observed client
+     */
+    default void bind(TelegramClient telegramClient) {}
+
+    /**
+     * Called when TDLib answers the query.
+     *
+     * @param query query to TDLib
+     * @param result result of the query, {@link TdApi.Error} if the query failed
+     * @param durationNanos time since the query was sent
+     */
+    default void onResult(TdApi.Function<?> query, TdApi.Object result, long durationNanos) {}
+
+    /**
+     * Called when the deadline of the query is reached.
+     *
+     * @param query query to TDLib
+     * @param durationNanos time since the query was sent
+     */
+    default void onTimeout(TdApi.Function<?> query, long durationNanos) {}
+
+    /**
+     * Called on the TDLib thread for each incoming update.
+     *
+     * @param update incoming update from TDLib
+     */
+    default void onUpdate(TdApi.Object update) {}
+
+}
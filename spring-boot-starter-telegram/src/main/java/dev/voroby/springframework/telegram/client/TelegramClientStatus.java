@@ -0,0 +1,21 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the state of the {@link TelegramClient}.
+ *
+ * @param receiverAlive the thread receiving results and updates from TDLib is running
+ * @param pendingQueries number of queries of the client waiting for the result
+ * @param sinceLastUpdate time since the last update of the client, null if there were no updates
+ * @param connectionState state of the connection to Telegram of the last {@link TdApi.UpdateConnectionState},
+ *                        null if there was none
+ *
+ * @author Pavel Vorobyev
+ */
+public record TelegramClientStatus(boolean receiverAlive,
+                                   int pendingQueries,
+                                   Duration sinceLastUpdate,
+                                   TdApi.ConnectionState connectionState) {}
@@ -0,0 +1,402 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cache of chats, users and supergroups kept coherent by the updates of TDLib, so reads don't cross JNI.
+ * Objects are added by {@link TdApi.UpdateNewChat}, {@link TdApi.UpdateUser}, {@link TdApi.UpdateSupergroup}
+ * and by query results, partial updates like {@link TdApi.UpdateChatTitle} are applied on the TDLib thread
+ * before listeners receive them. A chat changed by any other {@code UpdateChat*} update is evicted
+ * instead of being patched. Every object type keeps at most {@code max-size} objects, the oldest are evicted
+ * and fetched from TDLib again on a miss.
+ * <p>
+ * The cache keeps its own copies of the objects and replaces a copy on every change, so objects passed
+ * to listeners and callers are never changed by the cache, and a read object is a consistent snapshot.
+ * Read objects must not be changed.
+ *
+ * @author Pavel Vorobyev
+ */
+public final class TelegramObjectCache {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+
+    /*
+     * Chat updates which don't change any field of the chat
+     */
+    private static final Set<String> TRANSIENT_CHAT_UPDATES =
+            Set.of("UpdateChatAction", "UpdateChatOnlineMemberCount");
+
+    private static final ClassValue<Layout> layouts = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    /*
+     * Field chatId of the chat updates which aren't applied to cached chats, null for other types
+     */
+    private static final ClassValue<Field> chatIdFields = new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+            if (!type.getSimpleName().startsWith("UpdateChat") || TRANSIENT_CHAT_UPDATES.contains(type.getSimpleName())) {
+                return null;
+            }
+            try {
+                Field chatId = type.getField("chatId");
+                return chatId.getType() == long.class ? chatId : null;
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+        }
+    };
+
+    private final Region<TdApi.Chat> chats;
+
+    private final Region<TdApi.User> users;
+
+    private final Region<TdApi.Supergroup> supergroups;
+
+    private TelegramObjectCache(int maxSize) {
+        this.chats = new Region<>("chats", maxSize);
+        this.users = new Region<>("users", maxSize);
+        this.supergroups = new Region<>("supergroups", maxSize);
+    }
+
+    /**
+     * @param cache cache properties
+     * @return cache or null if caching is disabled
+     */
+    static TelegramObjectCache create(TelegramProperties.Cache cache) {
+        if (cache == null || !cache.enabled()) {
+            return null;
+        }
+        return new TelegramObjectCache(cache.maxSize() > 0 ? cache.maxSize() : DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param chatId chat identifier
+     * @return cached chat
+     */
+    public Optional<TdApi.Chat> getChat(long chatId) {
+        return Optional.ofNullable(chats.get(chatId));
+    }
+
+    /**
+     * @param userId user identifier
+     * @return cached user
+     */
+    public Optional<TdApi.User> getUser(long userId) {
+        return Optional.ofNullable(users.get(userId));
+    }
+
+    /**
+     * @param supergroupId supergroup or channel identifier
+     * @return cached supergroup
+     */
+    public Optional<TdApi.Supergroup> getSupergroup(long supergroupId) {
+        return Optional.ofNullable(supergroups.get(supergroupId));
+    }
+
+    /**
+     * @return caches of chats, users and supergroups
+     */
+    public List<Region<?>> regions() {
+        return List.of(chats, users, supergroups);
+    }
+
+    /*
+     * Called on the TDLib thread for every update
+     */
+    void onUpdate(TdApi.Object update) {
+        switch (update.getConstructor()) {
+            case TdApi.UpdateNewChat.CONSTRUCTOR -> {
+                TdApi.Chat chat = ((TdApi.UpdateNewChat) update).chat;
+                chats.put(chat.id, chat);
+            }
+            case TdApi.UpdateChatTitle.CONSTRUCTOR -> {
+                var chatTitle = (TdApi.UpdateChatTitle) update;
+                chats.update(chatTitle.chatId, chat -> chat.title = chatTitle.title);
+            }
+            case TdApi.UpdateChatPhoto.CONSTRUCTOR -> {
+                var chatPhoto = (TdApi.UpdateChatPhoto) update;
+                chats.update(chatPhoto.chatId, chat -> chat.photo = chatPhoto.photo);
+            }
+            case TdApi.UpdateChatPermissions.CONSTRUCTOR -> {
+                var chatPermissions = (TdApi.UpdateChatPermissions) update;
+                chats.update(chatPermissions.chatId, chat -> chat.permissions = chatPermissions.permissions);
+            }
+            case TdApi.UpdateChatLastMessage.CONSTRUCTOR -> {
+                var lastMessage = (TdApi.UpdateChatLastMessage) update;
+                chats.update(lastMessage.chatId, chat -> {
+                    chat.lastMessage = lastMessage.lastMessage;
+                    chat.positions = lastMessage.positions;
+                });
+            }
+            case TdApi.UpdateChatPosition.CONSTRUCTOR -> {
+                var chatPosition = (TdApi.UpdateChatPosition) update;
+                chats.update(chatPosition.chatId,
+                        chat -> chat.positions = withPosition(chat.positions, chatPosition.position));
+            }
+            case TdApi.UpdateChatDraftMessage.CONSTRUCTOR -> {
+                var draftMessage = (TdApi.UpdateChatDraftMessage) update;
+                chats.update(draftMessage.chatId, chat -> {
+                    chat.draftMessage = draftMessage.draftMessage;
+                    chat.positions = draftMessage.positions;
+                });
+            }
+            case TdApi.UpdateChatReadInbox.CONSTRUCTOR -> {
+                var readInbox = (TdApi.UpdateChatReadInbox) update;
+                chats.update(readInbox.chatId, chat -> {
+                    chat.lastReadInboxMessageId = readInbox.lastReadInboxMessageId;
+                    chat.unreadCount = readInbox.unreadCount;
+                });
+            }
+            case TdApi.UpdateChatReadOutbox.CONSTRUCTOR -> {
+                var readOutbox = (TdApi.UpdateChatReadOutbox) update;
+                chats.update(readOutbox.chatId, chat -> chat.lastReadOutboxMessageId = readOutbox.lastReadOutboxMessageId);
+            }
+            case TdApi.UpdateChatUnreadMentionCount.CONSTRUCTOR -> {
+                var mentionCount = (TdApi.UpdateChatUnreadMentionCount) update;
+                chats.update(mentionCount.chatId, chat -> chat.unreadMentionCount = mentionCount.unreadMentionCount);
+            }
+            case TdApi.UpdateMessageMentionRead.CONSTRUCTOR -> {
+                var mentionRead = (TdApi.UpdateMessageMentionRead) update;
+                chats.update(mentionRead.chatId, chat -> chat.unreadMentionCount = mentionRead.unreadMentionCount);
+            }
+            case TdApi.UpdateChatUnreadReactionCount.CONSTRUCTOR -> {
+                var reactionCount = (TdApi.UpdateChatUnreadReactionCount) update;
+                chats.update(reactionCount.chatId, chat -> chat.unreadReactionCount = reactionCount.unreadReactionCount);
+            }
+            case TdApi.UpdateMessageUnreadReactions.CONSTRUCTOR -> {
+                var unreadReactions = (TdApi.UpdateMessageUnreadReactions) update;
+                chats.update(unreadReactions.chatId,
+                        chat -> chat.unreadReactionCount = unreadReactions.unreadReactionCount);
+            }
+            case TdApi.UpdateChatIsMarkedAsUnread.CONSTRUCTOR -> {
+                var markedAsUnread = (TdApi.UpdateChatIsMarkedAsUnread) update;
+                chats.update(markedAsUnread.chatId, chat -> chat.isMarkedAsUnread = markedAsUnread.isMarkedAsUnread);
+            }
+            case TdApi.UpdateChatNotificationSettings.CONSTRUCTOR -> {
+                var notificationSettings = (TdApi.UpdateChatNotificationSettings) update;
+                chats.update(notificationSettings.chatId,
+                        chat -> chat.notificationSettings = notificationSettings.notificationSettings);
+            }
+            case TdApi.UpdateUser.CONSTRUCTOR -> {
+                TdApi.User user = ((TdApi.UpdateUser) update).user;
+                users.put(user.id, user);
+            }
+            case TdApi.UpdateUserStatus.CONSTRUCTOR -> {
+                var userStatus = (TdApi.UpdateUserStatus) update;
+                users.update(userStatus.userId, user -> user.status = userStatus.status);
+            }
+            case TdApi.UpdateSupergroup.CONSTRUCTOR -> {
+                TdApi.Supergroup supergroup = ((TdApi.UpdateSupergroup) update).supergroup;
+                supergroups.put(supergroup.id, supergroup);
+            }
+            default -> {
+                Field chatId = chatIdFields.get(update.getClass());
+                if (chatId != null) {
+                    chats.remove(chatIdOf(chatId, update));
+                }
+            }
+        }
+    }
+
+    private static long chatIdOf(Field chatId, TdApi.Object update) {
+        try {
+            return chatId.getLong(update);
+        } catch (IllegalAccessException e) {
+            throw new TelegramClientTdApiException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Called on the TDLib thread for every query result, objects evicted earlier are cached again
+     */
+    void onResult(TdApi.Object result) {
+        if (result instanceof TdApi.Chat chat) {
+            chats.putIfAbsent(chat.id, chat);
+        } else if (result instanceof TdApi.User user) {
+            users.putIfAbsent(user.id, user);
+        } else if (result instanceof TdApi.Supergroup supergroup) {
+            supergroups.putIfAbsent(supergroup.id, supergroup);
+        }
+    }
+
+    private static TdApi.ChatPosition[] withPosition(TdApi.ChatPosition[] positions, TdApi.ChatPosition position) {
+        TdApi.ChatPosition[] changed = Arrays.stream(positions)
+                .filter(current -> !sameList(current.list, position.list))
+                .toArray(TdApi.ChatPosition[]::new);
+        if (position.order == 0) {
+            return changed;
+        }
+        changed = Arrays.copyOf(changed, changed.length + 1);
+        changed[changed.length - 1] = position;
+        return changed;
+    }
+
+    /*
+     * Shallow copy, the cache never changes nested objects
+     */
+    private static <T extends TdApi.Object> T copyOf(T object) {
+        Layout layout = layouts.get(object.getClass());
+        try {
+            @SuppressWarnings("unchecked")
+            T copy = (T) layout.constructor().newInstance();
+            for (Field field : layout.fields()) {
+                field.set(copy, field.get(object));
+            }
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new TelegramClientTdApiException(e.getMessage(), e);
+        }
+    }
+
+    private record Layout(Constructor<?> constructor, Field[] fields) {
+
+        static Layout of(Class<?> type) {
+            try {
+                Field[] fields = Arrays.stream(type.getFields())
+                        .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                        .toArray(Field[]::new);
+                return new Layout(type.getConstructor(), fields);
+            } catch (NoSuchMethodException e) {
+                throw new TelegramClientTdApiException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private static boolean sameList(TdApi.ChatList list, TdApi.ChatList other) {
+        if (list.getConstructor() != other.getConstructor()) {
+            return false;
+        }
+        return !(list instanceof TdApi.ChatListFolder folder) ||
+                folder.chatFolderId == ((TdApi.ChatListFolder) other).chatFolderId;
+    }
+
+    /**
+     * Cache of one object type. Reads are lock-free, objects are added and replaced on the TDLib thread.
+     *
+     * @param <T> type of cached objects
+     */
+    public static final class Region<T extends TdApi.Object> {
+
+        private final String name;
+
+        private final int maxSize;
+
+        private final ConcurrentHashMap<Long, T> objects = new ConcurrentHashMap<>();
+
+        /*
+         * Ids in order of insertion, evicts the eldest object when the region is full
+         */
+        private final LinkedHashMap<Long, Boolean> insertionOrder = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                if (size() > maxSize) {
+                    objects.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private Region(String name, int maxSize) {
+            this.name = name;
+            this.maxSize = maxSize;
+        }
+
+        private T get(long id) {
+            T object = objects.get(id);
+            if (object != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return object;
+        }
+
+        private synchronized void put(long id, T object) {
+            if (objects.put(id, copyOf(object)) == null) {
+                added(id);
+            }
+        }
+
+        private synchronized void putIfAbsent(long id, T object) {
+            if (!objects.containsKey(id)) {
+                objects.put(id, copyOf(object));
+                added(id);
+            }
+        }
+
+        /*
+         * Replaces the cached object by its changed copy
+         */
+        private void update(long id, Consumer<T> change) {
+            objects.computeIfPresent(id, (key, object) -> {
+                T copy = copyOf(object);
+                change.accept(copy);
+                return copy;
+            });
+        }
+
+        private synchronized void remove(long id) {
+            if (objects.remove(id) != null) {
+                insertionOrder.remove(id);
+            }
+        }
+
+        private void added(long id) {
+            insertionOrder.put(id, Boolean.TRUE);
+        }
+
+        /**
+         * @return name of the object type, e.g. {@code chats}
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return number of cached objects
+         */
+        public int size() {
+            return objects.size();
+        }
+
+        /**
+         * @return number of reads served by the cache
+         */
+        public long hits() {
+            return hits.sum();
+        }
+
+        /**
+         * @return number of reads not found in the cache
+         */
+        public long misses() {
+            return misses.sum();
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel for request deadlines.
+ * Scheduling and cancellation are O(1) and lock-free for the caller, all buckets are owned by a single
+ * daemon thread which is started on the first scheduled timeout.
+ * Expiration callbacks are invoked on the wheel thread and should be short.
+ *
+ * @author Pavel Vorobyev
+ */
+final class TimeoutWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeoutWheel.class);
+
+    private static final TimeoutWheel shared = new TimeoutWheel(10, TimeUnit.MILLISECONDS, 512);
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final Bucket[] wheel;
+
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile long startTime;
+
+    /**
+     * @param tick duration of one tick, defines precision of the timeouts
+     * @param tickUnit time unit of the tick
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    TimeoutWheel(long tick, TimeUnit tickUnit, int wheelSize) {
+        this.tickNanos = tickUnit.toNanos(tick);
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return wheel of request deadlines, rate limiter delays and update windows of all clients of the JVM
+     */
+    static TimeoutWheel shared() {
+        return shared;
+    }
+
+    /**
+     * Schedules the timeout. Cancelled timeouts are ignored.
+     *
+     * @param timeout timeout to schedule, must not be scheduled twice
+     * @param delayNanos delay in nanoseconds
+     */
+    void schedule(Timeout timeout, long delayNanos) {
+        start();
+        timeout.wheel = this;
+        timeout.deadline = System.nanoTime() + Math.max(delayNanos, 0) - startTime;
+        scheduled.add(timeout);
+    }
+
+    private void start() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startTime = System.nanoTime();
+            Thread worker = new Thread(this::run, "TDLib timeout wheel");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        while (startTime == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long deadline = tickNanos * (tick + 1);
+            long now;
+            while ((now = System.nanoTime() - startTime) < deadline) {
+                LockSupport.parkNanos(deadline - now);
+            }
+            removeCancelled();
+            transferScheduled(tick);
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled(long currentTick) {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state != Timeout.INIT) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - currentTick) / wheel.length;
+            long ticks = Math.max(calculated, currentTick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Timeout scheduled in the wheel. The state transition decides who wins between completion and expiration:
+     * exactly one of {@link #cancel()} and {@link #expire()} takes effect.
+     */
+    abstract static class Timeout {
+
+        private static final int INIT = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private volatile int state;
+
+        private volatile TimeoutWheel wheel;
+
+        private long deadline;
+
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout next;
+
+        private Timeout prev;
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return true if the timeout was cancelled, false if it has already expired or been cancelled
+         */
+        final boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            TimeoutWheel timeoutWheel = wheel;
+            if (timeoutWheel != null) {
+                timeoutWheel.cancelled.add(this);
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the timeout has neither expired nor been cancelled
+         */
+        final boolean isPending() {
+            return state == INIT;
+        }
+
+        /**
+         * Callback called on the wheel thread when the deadline is reached.
+         */
+        abstract void expire();
+
+    }
+
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (Timeout.STATE.compareAndSet(timeout, Timeout.INIT, Timeout.EXPIRED)) {
+                        try {
+                            timeout.expire();
+                        } catch (Throwable e) {
+                            log.error("Timeout expiration failed", e);
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.updates.BatchUpdateListener;
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects incoming updates for a {@link BatchUpdateListener} on the TDLib thread.
+ * A batch is passed to the bounded {@link UpdateQueue} of the listener when it is full, at the end of the receive cycle
+ * or, if the listener has a batch delay, when the time window of the batch elapses.
+ * In caller thread mode batches of time windows are run by {@link UpdateDispatcher#timerThreads()},
+ * so the listener never runs on the thread of the {@link TimeoutWheel}, which also never waits
+ * for a full queue.
+ *
+ * @param <T> listener type
+ * @author Pavel Vorobyev
+ */
+final class UpdateBatch<T extends TdApi.Update> implements Consumer<TdApi.Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateBatch.class);
+
+    private final BatchUpdateListener<T> listener;
+
+    private final Class<T> type;
+
+    private final int maxSize;
+
+    private final long delayNanos;
+
+    private final UpdateQueue<List<T>> queue;
+
+    private final TimeoutWheel timeoutWheel;
+
+    private List<T> updates;
+
+    private Window window;
+
+    UpdateBatch(BatchUpdateListener<T> listener, int constructor, UpdateDispatcher dispatcher, TimeoutWheel timeoutWheel) {
+        this.listener = listener;
+        this.type = listener.notificationType();
+        this.maxSize = Math.max(listener.maxBatchSize(), 1);
+        this.delayNanos = listener.maxBatchDelay() == null ? 0 : Math.max(listener.maxBatchDelay().toNanos(), 0);
+        UpdateDispatcher executor = delayNanos > 0 && dispatcher.isCallerThread() ?
+                UpdateDispatcher.timerThreads() : dispatcher;
+        this.queue = dispatcher.batchQueue(listener.getClass().getName(), type, constructor, executor, this::handle);
+        this.timeoutWheel = timeoutWheel;
+    }
+
+    /**
+     * Adds the update to the current batch.
+     *
+     * @param object incoming update from TDLib
+     */
+    @Override
+    public void accept(TdApi.Object object) {
+        List<T> full = null;
+        synchronized (this) {
+            if (updates == null) {
+                updates = new ArrayList<>(Math.min(maxSize, 16));
+            }
+            updates.add(type.cast(object));
+            if (updates.size() >= maxSize) {
+                full = take();
+            } else if (delayNanos > 0 && window == null) {
+                window = new Window();
+                timeoutWheel.schedule(window, delayNanos);
+            }
+        }
+        deliver(full, UpdateQueue.MAX_BLOCK_NANOS);
+    }
+
+    /**
+     * Closes the batch of the receive cycle unless the listener collects updates in time windows.
+     */
+    void onReceiveCycleEnd() {
+        if (delayNanos == 0) {
+            List<T> batch;
+            synchronized (this) {
+                batch = take();
+            }
+            deliver(batch, UpdateQueue.MAX_BLOCK_NANOS);
+        }
+    }
+
+    private List<T> take() {
+        List<T> batch = updates;
+        updates = null;
+        if (window != null) {
+            window.cancel();
+            window = null;
+        }
+        return batch;
+    }
+
+    private void deliver(List<T> batch, long maxBlockNanos) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        if (queue == null) {
+            handle(batch);
+        } else {
+            queue.offer(batch, maxBlockNanos);
+        }
+    }
+
+    private void handle(List<T> batch) {
+        try {
+            listener.handleNotifications(batch);
+        } catch (RuntimeException e) {
+            log.error("Batch update listener failed", e);
+        }
+    }
+
+    private final class Window extends TimeoutWheel.Timeout {
+
+        @Override
+        void expire() {
+            List<T> batch = null;
+            synchronized (UpdateBatch.this) {
+                if (window == this) {
+                    batch = take();
+                }
+            }
+            deliver(batch, 0);
+        }
+    }
+
+}
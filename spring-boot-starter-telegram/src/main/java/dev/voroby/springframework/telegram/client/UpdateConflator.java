@@ -0,0 +1,163 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.UpdateKeys.ConflationKey;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Conflation of state updates in front of listeners: of the updates of the same chat (user, file)
+ * received during the interval only the newest one is passed to the listener. Positions of a chat
+ * in different chat lists are conflated separately.
+ * An update is passed at once if the listener received nothing during the last interval, so a listener
+ * receives at most one update per key every interval and rare updates aren't delayed.
+ * Conflated updates are passed by {@link UpdateDispatcher#timerThreads()} when the interval elapses, so a slow
+ * listener or a full queue of the listener never stalls the thread of the {@link TimeoutWheel}.
+ *
+ * @author Pavel Vorobyev
+ */
+final class UpdateConflator {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateConflator.class);
+
+    private static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+
+    private static final List<String> DEFAULT_UPDATES = List.of(
+            TdApi.UpdateUserStatus.class.getSimpleName(),
+            TdApi.UpdateChatReadInbox.class.getSimpleName(),
+            TdApi.UpdateChatLastMessage.class.getSimpleName(),
+            TdApi.UpdateChatPosition.class.getSimpleName(),
+            TdApi.UpdateFile.class.getSimpleName()
+    );
+
+    private final long intervalNanos;
+
+    private final Set<String> updates;
+
+    private final TimeoutWheel timeoutWheel;
+
+    private final AtomicLong conflated = new AtomicLong();
+
+    private UpdateConflator(long intervalNanos, Set<String> updates, TimeoutWheel timeoutWheel) {
+        this.intervalNanos = intervalNanos;
+        this.updates = updates;
+        this.timeoutWheel = timeoutWheel;
+    }
+
+    /**
+     * @param conflation conflation properties
+     * @param timeoutWheel wheel of conflation intervals
+     * @return conflator or null if conflation is disabled
+     */
+    static UpdateConflator create(TelegramProperties.Conflation conflation, TimeoutWheel timeoutWheel) {
+        if (conflation == null || !conflation.enabled()) {
+            return null;
+        }
+        Duration interval = conflation.interval() != null && conflation.interval().compareTo(Duration.ZERO) > 0 ?
+                conflation.interval() : DEFAULT_INTERVAL;
+        List<String> updates = conflation.updates() == null || conflation.updates().isEmpty() ?
+                DEFAULT_UPDATES : conflation.updates();
+        return new UpdateConflator(interval.toNanos(), Set.copyOf(updates), timeoutWheel);
+    }
+
+    /**
+     * @param updateType type of updates of the listener
+     * @param listener listener of updates
+     * @return consumer conflating updates of the listener, or the listener as is if the type isn't conflated
+     */
+    Consumer<TdApi.Object> conflate(Class<?> updateType, Consumer<TdApi.Object> listener) {
+        if (!updates.contains(updateType.getSimpleName())) {
+            return listener;
+        }
+        return new Conflation(listener);
+    }
+
+    /**
+     * @return number of updates replaced by a newer update of the same key
+     */
+    long conflated() {
+        return conflated.get();
+    }
+
+    private final class Conflation implements Consumer<TdApi.Object> {
+
+        private final Consumer<TdApi.Object> listener;
+
+        /*
+         * Lane of the timer threads, flushes of the conflation are serial
+         */
+        private final long key = System.identityHashCode(this);
+
+        /*
+         * Newest updates by key in order of the first update of the key, null if nothing is pending
+         */
+        private Map<ConflationKey, TdApi.Object> pending;
+
+        private Interval interval;
+
+        private Conflation(Consumer<TdApi.Object> listener) {
+            this.listener = listener;
+        }
+
+        /*
+         * The first update of an interval is passed under the lock, so the interval can't flush newer updates before it
+         */
+        @Override
+        public synchronized void accept(TdApi.Object update) {
+            if (interval == null) {
+                startInterval();
+                listener.accept(update);
+                return;
+            }
+            if (pending == null) {
+                pending = new LinkedHashMap<>();
+            }
+            if (pending.put(UpdateKeys.conflationKeyOf(update), update) != null) {
+                conflated.incrementAndGet();
+            }
+        }
+
+        private void startInterval() {
+            interval = new Interval();
+            timeoutWheel.schedule(interval, intervalNanos);
+        }
+
+        private void flush() {
+            Map<ConflationKey, TdApi.Object> updates;
+            synchronized (this) {
+                updates = pending;
+                pending = null;
+                if (updates == null) {
+                    interval = null;
+                    return;
+                }
+                startInterval();
+            }
+            for (TdApi.Object update : updates.values()) {
+                try {
+                    listener.accept(update);
+                } catch (RuntimeException e) {
+                    log.error("Update listener failed", e);
+                }
+            }
+        }
+
+        private final class Interval extends TimeoutWheel.Timeout {
+
+            @Override
+            void expire() {
+                UpdateDispatcher.timerThreads().execute(key, Conflation.this::flush);
+            }
+        }
+    }
+
+}
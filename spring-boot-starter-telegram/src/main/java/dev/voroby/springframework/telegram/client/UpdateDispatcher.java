@@ -0,0 +1,299 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientConfigurationException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure.Overflow;
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dispatch stage between the TDLib receive thread and update listeners.
+ * In {@link TelegramProperties.Dispatch.Mode#CALLER} mode updates are handled directly on the TDLib thread.
+ * Otherwise, updates are sharded into ordered lanes by {@link UpdateKeys#keyOf(TdApi.Object)}: updates with the same key
+ * are handled one after another in the order received, different lanes are handled in parallel by the executor.
+ * The number of queued updates (batches) of each listener is bounded by its {@link UpdateQueue}.
+ *
+ * @author Pavel Vorobyev
+ */
+final class UpdateDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    /*
+     * Max number of updates handled by a lane before it yields the thread to other lanes
+     */
+    private static final int DRAIN_LIMIT = 64;
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final Executor executor;
+
+    private final Lane[] lanes;
+
+    private final int mask;
+
+    private final TelegramProperties.Dispatch.Backpressure backpressure;
+
+    private final List<UpdateQueue<?>> queues = new CopyOnWriteArrayList<>();
+
+    private UpdateDispatcher(Executor executor, int lanes, TelegramProperties.Dispatch.Backpressure backpressure) {
+        this.executor = executor;
+        this.backpressure = backpressure;
+        if (executor == null) {
+            this.lanes = null;
+            this.mask = 0;
+        } else {
+            int size = Integer.highestOneBit(Math.max(lanes, 2) - 1) << 1;
+            this.lanes = new Lane[size];
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                this.lanes[i] = new Lane();
+            }
+        }
+    }
+
+    /**
+     * @return dispatcher handling updates on the TDLib thread
+     */
+    static UpdateDispatcher callerThread() {
+        return new UpdateDispatcher(null, 0, null);
+    }
+
+    /**
+     * Dispatcher of updates released by timers of the {@link TimeoutWheel}, e.g. batches of time windows
+     * and conflated updates, so listeners never run on the wheel thread. Shared by all clients of the JVM,
+     * its threads are started on demand.
+     *
+     * @return dispatcher of updates released by timers
+     */
+    static UpdateDispatcher timerThreads() {
+        return TimerThreads.dispatcher;
+    }
+
+    /**
+     * @param dispatch dispatch properties, caller thread mode if null
+     * @return dispatcher configured by properties
+     */
+    static UpdateDispatcher create(TelegramProperties.Dispatch dispatch) {
+        if (dispatch == null || dispatch.mode() == null) {
+            return callerThread();
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        return switch (dispatch.mode()) {
+            case CALLER -> callerThread();
+            case PLATFORM -> {
+                int threads = dispatch.threads() > 0 ? dispatch.threads() : processors;
+                int lanes = dispatch.lanes() > 0 ? dispatch.lanes() : threads * 4;
+                yield new UpdateDispatcher(Executors.newFixedThreadPool(threads,
+                        platformThreadFactory("TDLib dispatcher-")), lanes, dispatch.backpressure());
+            }
+            case VIRTUAL -> {
+                int lanes = dispatch.lanes() > 0 ? dispatch.lanes() : processors * 4;
+                yield new UpdateDispatcher(virtualThreadExecutor(), lanes, dispatch.backpressure());
+            }
+        };
+    }
+
+    /**
+     * Wraps the listener into a bounded {@link UpdateQueue}, which passes updates to the listener
+     * in the lane of the update key. In caller thread mode the listener is returned as is.
+     *
+     * @param name name of the listener
+     * @param updateType type of updates of the listener, selects the overflow policy
+     * @param listener listener of updates
+     * @return consumer to be called on the TDLib thread
+     */
+    Consumer<TdApi.Object> queue(String name, Class<?> updateType, Consumer<TdApi.Object> listener) {
+        if (lanes == null) {
+            return listener;
+        }
+        var queue = new UpdateQueue<>(name, listener, UpdateKeys::keyOf, UpdateKeys::conflationKeyOf,
+                this, capacity(), overflow(updateType));
+        queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * Wraps the listener of batches into a bounded {@link UpdateQueue}, which passes batches to the listener
+     * in the lane of the key. Batches can't be conflated, {@link Overflow#CONFLATE} drops the oldest batch.
+     *
+     * @param name name of the listener
+     * @param updateType type of updates of the listener, selects the overflow policy
+     * @param key ordering key of batches
+     * @param executor dispatcher running batches, this one or {@link #timerThreads()}
+     * @param listener listener of batches
+     * @return queue of batches, null if the executor runs batches on the calling thread
+     * @param <T> type of batches
+     */
+    <T> UpdateQueue<T> batchQueue(String name, Class<?> updateType, long key, UpdateDispatcher executor,
+                                  Consumer<T> listener) {
+        if (executor.lanes == null) {
+            return null;
+        }
+        var queue = new UpdateQueue<T>(name, listener, batch -> key, null, executor, capacity(), overflow(updateType));
+        queues.add(queue);
+        return queue;
+    }
+
+    private int capacity() {
+        return backpressure != null && backpressure.queueCapacity() > 0 ?
+                backpressure.queueCapacity() : DEFAULT_QUEUE_CAPACITY;
+    }
+
+    private Overflow overflow(Class<?> updateType) {
+        Overflow overflow = Overflow.DROP_OLDEST;
+        if (backpressure != null) {
+            if (backpressure.overflow() != null) {
+                overflow = backpressure.overflow();
+            }
+            if (backpressure.updates() != null) {
+                overflow = backpressure.updates().getOrDefault(updateType.getSimpleName(), overflow);
+            }
+        }
+        return overflow;
+    }
+
+    /**
+     * @return updates are handled on the TDLib thread
+     */
+    boolean isCallerThread() {
+        return lanes == null;
+    }
+
+    /**
+     * @return bounded queues of listeners, in caller thread mode only queues of batches of time windows
+     */
+    List<UpdateQueue<?>> queues() {
+        return queues;
+    }
+
+    /**
+     * Runs the task in the lane of the key.
+     *
+     * @param key ordering key, tasks with the same key are run in the order submitted
+     * @param task task to run
+     */
+    void execute(long key, Runnable task) {
+        if (lanes == null) {
+            task.run();
+        } else {
+            lanes[laneIndex(key)].execute(task);
+        }
+    }
+
+    private int laneIndex(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    /**
+     * Stops the executor, updates that are already queued are still handled.
+     */
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String prefix) {
+        var counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new TelegramClientConfigurationException("Virtual threads are available since Java 21. " +
+                    "Specify property spring.telegram.client.dispatch.mode=platform");
+        }
+    }
+
+    private static final class TimerThreads {
+
+        private static final UpdateDispatcher dispatcher;
+
+        static {
+            int threads = Runtime.getRuntime().availableProcessors();
+            dispatcher = new UpdateDispatcher(Executors.newFixedThreadPool(threads,
+                    platformThreadFactory("TDLib timer dispatcher-")), threads * 4, null);
+        }
+    }
+
+    /**
+     * Serial executor: at most one thread handles updates of the lane at a time.
+     */
+    private final class Lane implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Update dispatcher is shut down, updates are handled on the calling thread");
+                    runAll();
+                }
+            }
+        }
+
+        private void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runSafely(task);
+            }
+            scheduled.set(false);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                for (int i = 0; i < DRAIN_LIMIT && (task = tasks.poll()) != null; i++) {
+                    runSafely(task);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!tasks.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private static void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("Update listener failed", e);
+            }
+        }
+    }
+
+}
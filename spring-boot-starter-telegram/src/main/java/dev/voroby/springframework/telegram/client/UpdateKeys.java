@@ -0,0 +1,74 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+
+/**
+ * Natural ordering keys of TDLib updates.
+ * Updates of the same chat (user, group, file) share a key, so they are delivered to listeners in the order
+ * received from TDLib. Updates not bound to an object are keyed by their type.
+ *
+ * @author Pavel Vorobyev
+ */
+final class UpdateKeys {
+
+    private UpdateKeys() {
+    }
+
+    /**
+     * @param update incoming update from TDLib
+     * @return ordering key of the update
+     */
+    static long keyOf(TdApi.Object update) {
+        return switch (update.getConstructor()) {
+            case TdApi.UpdateNewMessage.CONSTRUCTOR -> ((TdApi.UpdateNewMessage) update).message.chatId;
+            case TdApi.UpdateMessageSendSucceeded.CONSTRUCTOR -> ((TdApi.UpdateMessageSendSucceeded) update).message.chatId;
+            case TdApi.UpdateMessageContent.CONSTRUCTOR -> ((TdApi.UpdateMessageContent) update).chatId;
+            case TdApi.UpdateMessageEdited.CONSTRUCTOR -> ((TdApi.UpdateMessageEdited) update).chatId;
+            case TdApi.UpdateDeleteMessages.CONSTRUCTOR -> ((TdApi.UpdateDeleteMessages) update).chatId;
+            case TdApi.UpdateNewChat.CONSTRUCTOR -> ((TdApi.UpdateNewChat) update).chat.id;
+            case TdApi.UpdateChatTitle.CONSTRUCTOR -> ((TdApi.UpdateChatTitle) update).chatId;
+            case TdApi.UpdateChatPhoto.CONSTRUCTOR -> ((TdApi.UpdateChatPhoto) update).chatId;
+            case TdApi.UpdateChatPermissions.CONSTRUCTOR -> ((TdApi.UpdateChatPermissions) update).chatId;
+            case TdApi.UpdateChatLastMessage.CONSTRUCTOR -> ((TdApi.UpdateChatLastMessage) update).chatId;
+            case TdApi.UpdateChatPosition.CONSTRUCTOR -> ((TdApi.UpdateChatPosition) update).chatId;
+            case TdApi.UpdateChatReadInbox.CONSTRUCTOR -> ((TdApi.UpdateChatReadInbox) update).chatId;
+            case TdApi.UpdateChatReadOutbox.CONSTRUCTOR -> ((TdApi.UpdateChatReadOutbox) update).chatId;
+            case TdApi.UpdateUser.CONSTRUCTOR -> ((TdApi.UpdateUser) update).user.id;
+            case TdApi.UpdateUserStatus.CONSTRUCTOR -> ((TdApi.UpdateUserStatus) update).userId;
+            case TdApi.UpdateBasicGroup.CONSTRUCTOR -> ((TdApi.UpdateBasicGroup) update).basicGroup.id;
+            case TdApi.UpdateSupergroup.CONSTRUCTOR -> ((TdApi.UpdateSupergroup) update).supergroup.id;
+            case TdApi.UpdateFile.CONSTRUCTOR -> ((TdApi.UpdateFile) update).file.id;
+            default -> update.getConstructor();
+        };
+    }
+
+    /**
+     * @param update incoming update from TDLib
+     * @return key of the state carried by the update, a newer update of the same key replaces it
+     */
+    static ConflationKey conflationKeyOf(TdApi.Object update) {
+        return new ConflationKey(keyOf(update), update.getConstructor(), variantOf(update));
+    }
+
+    /*
+     * Updates of one type and object carrying independent states, e.g. positions of a chat in different chat lists
+     */
+    private static int variantOf(TdApi.Object update) {
+        if (update.getConstructor() != TdApi.UpdateChatPosition.CONSTRUCTOR) {
+            return 0;
+        }
+        TdApi.ChatList list = ((TdApi.UpdateChatPosition) update).position.list;
+        return list.getConstructor() == TdApi.ChatListFolder.CONSTRUCTOR ?
+                ((TdApi.ChatListFolder) list).chatFolderId : list.getConstructor();
+    }
+
+    /**
+     * Updates of different types of the same chat share the ordering key, but never replace each other.
+     *
+     * @param key ordering key of the update
+     * @param constructor type of the update
+     * @param variant state of the object carried by the update
+     */
+    record ConflationKey(long key, int constructor, int variant) {}
+
+}
@@ -0,0 +1,120 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable dispatch table of update listeners keyed by the TDLib constructor identifier.
+ * Open addressing with linear probing over primitive keys: a lookup neither boxes the key nor allocates.
+ * All listeners of an update type are invoked in the order they were added.
+ *
+ * @author Pavel Vorobyev
+ */
+final class UpdateListenerTable {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateListenerTable.class);
+
+    private final int[] keys;
+
+    private final Consumer<TdApi.Object>[] values;
+
+    private final int shift;
+
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    private UpdateListenerTable(Map<Integer, List<Consumer<TdApi.Object>>> listeners) {
+        int capacity = Math.max(Integer.highestOneBit(Math.max(listeners.size(), 1)) << 2, 4);
+        this.keys = new int[capacity];
+        this.values = new Consumer[capacity];
+        this.shift = Integer.numberOfLeadingZeros(capacity - 1);
+        this.mask = capacity - 1;
+        listeners.forEach((constructor, consumers) -> {
+            int i = index(constructor);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = constructor;
+            values[i] = consumers.size() == 1
+                    ? consumers.get(0)
+                    : new FanOut(consumers.toArray(new Consumer[0]));
+        });
+    }
+
+    /**
+     * @return builder of the table
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param constructor TDLib constructor identifier of the update
+     * @param defaultListener listener returned if there is no listener for the constructor
+     * @return listener of the update type, all listeners of the type are called in order
+     */
+    Consumer<TdApi.Object> get(int constructor, Consumer<TdApi.Object> defaultListener) {
+        int i = index(constructor);
+        Consumer<TdApi.Object> value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == constructor) {
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultListener;
+    }
+
+    private int index(int constructor) {
+        return (constructor * 0x9E3779B9) >>> shift & mask;
+    }
+
+    /**
+     * Invokes listeners one after another, a failed listener doesn't prevent the next ones from receiving the update.
+     *
+     * @param listeners listeners of the same update type
+     */
+    private record FanOut(Consumer<TdApi.Object>[] listeners) implements Consumer<TdApi.Object> {
+
+        @Override
+        public void accept(TdApi.Object update) {
+            for (Consumer<TdApi.Object> listener : listeners) {
+                try {
+                    listener.accept(update);
+                } catch (RuntimeException e) {
+                    log.error("Update listener failed", e);
+                }
+            }
+        }
+    }
+
+    static final class Builder {
+
+        private final Map<Integer, List<Consumer<TdApi.Object>>> listeners = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param constructor TDLib constructor identifier of the update
+         * @param listener listener of the update, invoked after the listeners added before
+         * @return this builder
+         */
+        Builder add(int constructor, Consumer<TdApi.Object> listener) {
+            listeners.computeIfAbsent(constructor, c -> new ArrayList<>()).add(listener);
+            return this;
+        }
+
+        UpdateListenerTable build() {
+            return new UpdateListenerTable(listeners);
+        }
+    }
+
+}
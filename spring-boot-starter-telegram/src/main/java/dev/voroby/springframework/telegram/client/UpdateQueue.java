@@ -0,0 +1,293 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.UpdateKeys.ConflationKey;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure.Overflow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded queue of updates between the TDLib thread and one listener.
+ * Updates are run in the ordered lanes of the {@link UpdateDispatcher}, the queue only bounds the number
+ * of updates of the listener waiting in the lanes and applies the {@link Overflow} policy when the bound is reached.
+ * The TDLib thread also delivers results of queries, so the {@link Overflow#BLOCK} policy waits no longer
+ * than {@link #MAX_BLOCK_NANOS} and then drops the update: a listener waiting for the result of a blocking query
+ * while its queue is full would otherwise never receive it.
+ * A queue of a {@link dev.voroby.springframework.telegram.client.updates.BatchUpdateListener} holds batches.
+ *
+ * @param <T> type of queued elements, an update or a batch of updates
+ * @author Pavel Vorobyev
+ */
+final class UpdateQueue<T> implements Consumer<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateQueue.class);
+
+    static final long MAX_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+
+    private final Consumer<T> listener;
+
+    private final ToLongFunction<T> keyOf;
+
+    private final Function<T, ConflationKey> conflationKeyOf;
+
+    private final UpdateDispatcher dispatcher;
+
+    private final int capacity;
+
+    private final Overflow overflow;
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /*
+     * Queued updates in order of arrival, used by the DROP_OLDEST policy
+     */
+    private final ArrayDeque<QueuedUpdate> oldest;
+
+    /*
+     * Queued updates by key and type, used by the CONFLATE policy
+     */
+    private final Map<ConflationKey, QueuedUpdate> byKey;
+
+    private volatile boolean blocked;
+
+    /**
+     * @param name name of the listener
+     * @param listener listener of queued elements
+     * @param keyOf ordering key of an element
+     * @param conflationKeyOf key of the state carried by an element, {@link Overflow#CONFLATE} falls back
+     *                        to {@link Overflow#DROP_OLDEST} if null
+     * @param dispatcher dispatcher running elements in the lanes of their keys
+     * @param capacity max number of queued elements
+     * @param overflow policy applied when the queue is full
+     */
+    UpdateQueue(String name, Consumer<T> listener, ToLongFunction<T> keyOf, Function<T, ConflationKey> conflationKeyOf,
+                UpdateDispatcher dispatcher, int capacity, Overflow overflow) {
+        this.name = name;
+        this.listener = listener;
+        this.keyOf = keyOf;
+        this.conflationKeyOf = conflationKeyOf;
+        this.dispatcher = dispatcher;
+        this.capacity = Math.max(capacity, 1);
+        this.overflow = overflow == null || overflow == Overflow.CONFLATE && conflationKeyOf == null ?
+                Overflow.DROP_OLDEST : overflow;
+        this.oldest = this.overflow == Overflow.DROP_OLDEST ? new ArrayDeque<>() : null;
+        this.byKey = this.overflow == Overflow.CONFLATE ? new HashMap<>() : null;
+    }
+
+    /**
+     * Queues the update or applies the overflow policy if the queue is full.
+     *
+     * @param update incoming update from TDLib
+     */
+    @Override
+    public void accept(T update) {
+        offer(update, MAX_BLOCK_NANOS);
+    }
+
+    /**
+     * Queues the update or applies the overflow policy if the queue is full.
+     *
+     * @param update incoming update or batch
+     * @param maxBlockNanos max wait of the {@link Overflow#BLOCK} policy, zero on threads that must never wait
+     */
+    void offer(T update, long maxBlockNanos) {
+        long key = keyOf.applyAsLong(update);
+        QueuedUpdate queued = switch (overflow) {
+            case BLOCK -> offerBlocking(update, key, maxBlockNanos);
+            case DROP_NEWEST -> offerDroppingNewest(update, key);
+            case DROP_OLDEST -> offerDroppingOldest(update, key);
+            case CONFLATE -> offerConflating(update, key);
+        };
+        if (queued != null) {
+            dispatcher.execute(key, queued);
+        }
+    }
+
+    private QueuedUpdate offerBlocking(T update, long key, long maxBlockNanos) {
+        if (depth.get() >= capacity) {
+            synchronized (this) {
+                blocked = true;
+                long deadline = System.nanoTime() + maxBlockNanos;
+                try {
+                    long remaining;
+                    while (depth.get() >= capacity) {
+                        remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            onDrop();
+                            return null;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    blocked = false;
+                }
+            }
+        }
+        depth.incrementAndGet();
+        return new QueuedUpdate(update, key);
+    }
+
+    private QueuedUpdate offerDroppingNewest(T update, long key) {
+        if (depth.get() >= capacity) {
+            onDrop();
+            return null;
+        }
+        depth.incrementAndGet();
+        return new QueuedUpdate(update, key);
+    }
+
+    private synchronized QueuedUpdate offerDroppingOldest(T update, long key) {
+        QueuedUpdate head;
+        while ((head = oldest.peekFirst()) != null && head.state != QueuedUpdate.QUEUED) {
+            oldest.pollFirst();
+        }
+        if (depth.get() >= capacity) {
+            while ((head = oldest.pollFirst()) != null) {
+                if (head.drop()) {
+                    depth.decrementAndGet();
+                    onDrop();
+                    break;
+                }
+            }
+        }
+        if (oldest.size() > capacity << 1) {
+            oldest.removeIf(queued -> queued.state != QueuedUpdate.QUEUED);
+        }
+        depth.incrementAndGet();
+        var queued = new QueuedUpdate(update, key);
+        oldest.addLast(queued);
+        return queued;
+    }
+
+    private synchronized QueuedUpdate offerConflating(T update, long key) {
+        var conflationKey = conflationKeyOf.apply(update);
+        if (depth.get() < capacity) {
+            depth.incrementAndGet();
+            var queued = new QueuedUpdate(update, key);
+            byKey.put(conflationKey, queued);
+            return queued;
+        }
+        QueuedUpdate sameKey = byKey.get(conflationKey);
+        if (sameKey != null && sameKey.state == QueuedUpdate.QUEUED) {
+            sameKey.update = update;
+        }
+        onDrop();
+        return null;
+    }
+
+    private void onDrop() {
+        if (dropped.getAndIncrement() == 0) {
+            log.warn("Update queue of {} is full, updates are dropped by {} policy", name, overflow);
+        }
+    }
+
+    private void onDone() {
+        depth.decrementAndGet();
+        if (blocked) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return name of the listener
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return max number of queued updates
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of queued updates
+     */
+    int depth() {
+        return depth.get();
+    }
+
+    /**
+     * @return number of dropped (or conflated) updates
+     */
+    long dropped() {
+        return dropped.get();
+    }
+
+    private final class QueuedUpdate implements Runnable {
+
+        private static final int QUEUED = 0;
+
+        private static final int RUNNING = 1;
+
+        private static final int DROPPED = 2;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<UpdateQueue.QueuedUpdate> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(UpdateQueue.QueuedUpdate.class, "state");
+
+        private final long key;
+
+        private volatile T update;
+
+        private volatile int state;
+
+        QueuedUpdate(T update, long key) {
+            this.update = update;
+            this.key = key;
+        }
+
+        boolean drop() {
+            if (STATE.compareAndSet(this, QUEUED, DROPPED)) {
+                update = null;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            if (!start()) {
+                return;
+            }
+            try {
+                listener.accept(update);
+            } finally {
+                // the entry may stay in the deque of the DROP_OLDEST policy until it reaches the head
+                update = null;
+                onDone();
+            }
+        }
+
+        private boolean start() {
+            if (byKey == null) {
+                return STATE.compareAndSet(this, QUEUED, RUNNING);
+            }
+            synchronized (UpdateQueue.this) {
+                byKey.remove(conflationKeyOf.apply(update), this);
+                return STATE.compareAndSet(this, QUEUED, RUNNING);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package dev.voroby.springframework.telegram.client;
+
+/**
+ * Snapshot of the bounded update queue of a listener.
+ *
+ * @param listener class name of the listener
+ * @param capacity max number of queued updates
+ * @param depth number of updates waiting for the listener
+ * @param dropped number of updates dropped or conflated by the overflow policy
+ *
+ * @author Pavel Vorobyev
+ */
+public record UpdateQueueStatus(String listener, int capacity, int depth, long dropped) {}
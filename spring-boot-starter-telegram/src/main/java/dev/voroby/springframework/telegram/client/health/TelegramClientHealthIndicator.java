@@ -0,0 +1,76 @@
+package dev.voroby.springframework.telegram.client.health;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramClientStatus;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import org.drinkless.tdlib.TdApi;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Health of the {@link TelegramClient}: {@code UP} if the account is authorized and the TDLib thread is running,
+ * {@code OUT_OF_SERVICE} while the account isn't authorized, {@code DOWN} if the TDLib thread has stopped
+ * or the client is closed. The state of the connection to Telegram is reported as a detail only,
+ * since TDLib reconnects by itself. The probe reads volatile fields only, so it may be polled often.
+ *
+ * @author Pavel Vorobyev
+ */
+public class TelegramClientHealthIndicator implements HealthIndicator {
+
+    private static final String UNKNOWN = "Unknown";
+
+    private final TelegramClient telegramClient;
+
+    private final ClientAuthorizationState authorizationState;
+
+    /**
+     * @param telegramClient observed client
+     * @param authorizationState authorization state of the client
+     */
+    public TelegramClientHealthIndicator(TelegramClient telegramClient, ClientAuthorizationState authorizationState) {
+        this.telegramClient = telegramClient;
+        this.authorizationState = authorizationState;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Health health() {
+        TelegramClientStatus status = telegramClient.getStatus();
+        Health.Builder health;
+        if (!status.receiverAlive() || authorizationState.isStateClosed()) {
+            health = Health.down();
+        } else if (authorizationState.haveAuthorization()) {
+            health = Health.up();
+        } else {
+            health = Health.outOfService();
+        }
+        return health.withDetails(details(status, authorizationState)).build();
+    }
+
+    /**
+     * @param status state of the client
+     * @param authorizationState authorization state of the client
+     * @return details of the client by name
+     */
+    static Map<String, Object> details(TelegramClientStatus status, ClientAuthorizationState authorizationState) {
+        var details = new LinkedHashMap<String, Object>();
+        details.put("authorizationState", nameOf(authorizationState.authorizationState()));
+        details.put("receiverAlive", status.receiverAlive());
+        details.put("pendingQueries", status.pendingQueries());
+        if (status.sinceLastUpdate() != null) {
+            details.put("sinceLastUpdate", status.sinceLastUpdate().toString());
+        }
+        details.put("connectionState", nameOf(status.connectionState()));
+        return details;
+    }
+
+    private static String nameOf(TdApi.Object state) {
+        return state != null ? state.getClass().getSimpleName() : UNKNOWN;
+    }
+
+}
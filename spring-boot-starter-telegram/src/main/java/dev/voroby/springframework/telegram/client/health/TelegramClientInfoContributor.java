@@ -0,0 +1,38 @@
+package dev.voroby.springframework.telegram.client.health;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+
+/**
+ * Contributes the state of the {@link TelegramClient} to the info endpoint under the {@code telegram} key,
+ * with the same details as {@link TelegramClientHealthIndicator}.
+ *
+ * @author Pavel Vorobyev
+ */
+public class TelegramClientInfoContributor implements InfoContributor {
+
+    private final TelegramClient telegramClient;
+
+    private final ClientAuthorizationState authorizationState;
+
+    /**
+     * @param telegramClient observed client
+     * @param authorizationState authorization state of the client
+     */
+    public TelegramClientInfoContributor(TelegramClient telegramClient, ClientAuthorizationState authorizationState) {
+        this.telegramClient = telegramClient;
+        this.authorizationState = authorizationState;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("telegram",
+                TelegramClientHealthIndicator.details(telegramClient.getStatus(), authorizationState));
+    }
+
+}
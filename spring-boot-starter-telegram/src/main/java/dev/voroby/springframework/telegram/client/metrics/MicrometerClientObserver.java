@@ -0,0 +1,197 @@
+package dev.voroby.springframework.telegram.client.metrics;
+
+import dev.voroby.springframework.telegram.client.QueryLaneStatus;
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramClientObserver;
+import dev.voroby.springframework.telegram.client.TelegramObjectCache;
+import dev.voroby.springframework.telegram.client.UpdateQueueStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.drinkless.tdlib.TdApi;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer metrics of the {@link TelegramClient}:
+ * <ul>
+ *     <li>{@code telegram.client.requests} - timer of queries tagged by function type and outcome</li>
+ *     <li>{@code telegram.client.requests.pending} - number of queries waiting for the result</li>
+ *     <li>{@code telegram.client.errors} - counter of TDLib errors tagged by error code</li>
+ *     <li>{@code telegram.client.updates} - counter of incoming updates tagged by update type</li>
+ *     <li>{@code telegram.client.update.queue.depth}, {@code telegram.client.update.queue.dropped} -
+ *     state of the update queues of listeners</li>
+ *     <li>{@code telegram.client.cache.requests}, {@code telegram.client.cache.size} - hits, misses and size
+ *     of the object cache tagged by object type, if caching is enabled</li>
+ *     <li>{@code telegram.client.lane.in.flight}, {@code telegram.client.lane.queued}, {@code telegram.client.lane.sent},
+ *     {@code telegram.client.lane.rejected} - state of the priority lanes of queries tagged by lane, if lanes are enabled</li>
+ * </ul>
+ * Meters of the state of a {@link #bind bound} client (pending queries, queues, lanes and cache) are tagged
+ * by {@code client}, the number of the client in order of binding, so clients sharing the observer never collide.
+ * Tags are limited to TDLib type names, error codes, lane names, listener class names and client numbers.
+ * Meters are resolved once per type, so a recording is a class lookup and a timer or counter update.
+ *
+ * @author Pavel Vorobyev
+ */
+public class MicrometerClientObserver implements TelegramClientObserver {
+
+    private static final int SUCCESS = 0, ERROR = 1, TIMEOUT = 2;
+
+    private static final String[] OUTCOMES = {"success", "error", "timeout"};
+
+    private final MeterRegistry registry;
+
+    private final ClassValue<Timer[]> requestTimers = new ClassValue<>() {
+        @Override
+        protected Timer[] computeValue(Class<?> type) {
+            Timer[] timers = new Timer[OUTCOMES.length];
+            for (int i = 0; i < OUTCOMES.length; i++) {
+                timers[i] = Timer.builder("telegram.client.requests")
+                        .description("TDLib queries")
+                        .tag("function", type.getSimpleName())
+                        .tag("outcome", OUTCOMES[i])
+                        .register(registry);
+            }
+            return timers;
+        }
+    };
+
+    private final ClassValue<Counter> updateCounters = new ClassValue<>() {
+        @Override
+        protected Counter computeValue(Class<?> type) {
+            return Counter.builder("telegram.client.updates")
+                    .description("Incoming TDLib updates")
+                    .tag("type", type.getSimpleName())
+                    .register(registry);
+        }
+    };
+
+    private final Map<Integer, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger clients = new AtomicInteger();
+
+    /**
+     * @param registry registry of meters
+     */
+    public MicrometerClientObserver(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind(TelegramClient telegramClient) {
+        String client = String.valueOf(clients.getAndIncrement());
+        Gauge.builder("telegram.client.requests.pending", telegramClient, TelegramClient::getPendingQueryCount)
+                .description("TDLib queries waiting for the result")
+                .tag("client", client)
+                .register(registry);
+        telegramClient.getUpdateQueues().forEach(queue -> {
+            String listener = queue.listener();
+            Gauge.builder("telegram.client.update.queue.depth", telegramClient,
+                            updateQueue(listener, UpdateQueueStatus::depth))
+                    .description("Updates waiting for the listener")
+                    .tags("client", client, "listener", listener)
+                    .register(registry);
+            FunctionCounter.builder("telegram.client.update.queue.dropped", telegramClient,
+                            updateQueue(listener, UpdateQueueStatus::dropped))
+                    .description("Updates dropped by the overflow policy")
+                    .tags("client", client, "listener", listener)
+                    .register(registry);
+        });
+        telegramClient.getQueryLanes().forEach(status -> {
+            String lane = status.lane();
+            Gauge.builder("telegram.client.lane.in.flight", telegramClient, queryLane(lane, QueryLaneStatus::inFlight))
+                    .description("Queries of the lane waiting for the result")
+                    .tags("client", client, "lane", lane)
+                    .register(registry);
+            Gauge.builder("telegram.client.lane.queued", telegramClient, queryLane(lane, QueryLaneStatus::queued))
+                    .description("Queries waiting in the queue of the lane")
+                    .tags("client", client, "lane", lane)
+                    .register(registry);
+            FunctionCounter.builder("telegram.client.lane.sent", telegramClient, queryLane(lane, QueryLaneStatus::sent))
+                    .description("Queries of the lane sent to TDLib")
+                    .tags("client", client, "lane", lane)
+                    .register(registry);
+            FunctionCounter.builder("telegram.client.lane.rejected", telegramClient,
+                            queryLane(lane, QueryLaneStatus::rejected))
+                    .description("Queries rejected by the full queue of the lane")
+                    .tags("client", client, "lane", lane)
+                    .register(registry);
+        });
+        telegramClient.getObjectCache().ifPresent(cache -> cache.regions().forEach(region -> {
+            FunctionCounter.builder("telegram.client.cache.requests", region, TelegramObjectCache.Region::hits)
+                    .description("Reads of the object cache")
+                    .tags("client", client, "cache", region.name(), "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("telegram.client.cache.requests", region, TelegramObjectCache.Region::misses)
+                    .description("Reads of the object cache")
+                    .tags("client", client, "cache", region.name(), "result", "miss")
+                    .register(registry);
+            Gauge.builder("telegram.client.cache.size", region, TelegramObjectCache.Region::size)
+                    .description("Cached objects")
+                    .tags("client", client, "cache", region.name())
+                    .register(registry);
+        }));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onResult(TdApi.Function<?> query, TdApi.Object result, long durationNanos) {
+        Timer[] timers = requestTimers.get(query.getClass());
+        if (result instanceof TdApi.Error error) {
+            timers[ERROR].record(durationNanos, TimeUnit.NANOSECONDS);
+            errorCounter(error.code).increment();
+        } else {
+            timers[SUCCESS].record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTimeout(TdApi.Function<?> query, long durationNanos) {
+        requestTimers.get(query.getClass())[TIMEOUT].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onUpdate(TdApi.Object update) {
+        updateCounters.get(update.getClass()).increment();
+    }
+
+    private Counter errorCounter(int code) {
+        return errorCounters.computeIfAbsent(code, c -> Counter.builder("telegram.client.errors")
+                .description("TDLib errors")
+                .tag("code", String.valueOf(c))
+                .register(registry));
+    }
+
+    private static ToDoubleFunction<TelegramClient> updateQueue(String listener,
+                                                                ToDoubleFunction<UpdateQueueStatus> value) {
+        return telegramClient -> telegramClient.getUpdateQueues().stream()
+                .filter(queue -> queue.listener().equals(listener))
+                .mapToDouble(value)
+                .sum();
+    }
+
+    private static ToDoubleFunction<TelegramClient> queryLane(String lane, ToDoubleFunction<QueryLaneStatus> value) {
+        return telegramClient -> telegramClient.getQueryLanes().stream()
+                .filter(status -> status.lane().equals(lane))
+                .mapToDouble(value)
+                .sum();
+    }
+
+}
@@ -2,23 +2,49 @@ package dev.voroby.springframework.telegram.client.runner;
 
 import dev.voroby.springframework.telegram.TelegramRunner;
 import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import dev.voroby.springframework.telegram.exception.TelegramRunnerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.annotation.OrderUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
-public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsumer {
+/**
+ * Runs {@link TelegramRunner}s when the client is authorized.
+ * Runners of the same order run in parallel on a bounded pool, the next order starts when all runners
+ * of the previous one are finished. A failed runner doesn't stop the runners of its order,
+ * but runners of the next orders are skipped. Runners are skipped if the context is closed
+ * before the client is authorized.
+ *
+ * @author Pavel Vorobyev
+ */
+public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsumer,
+        ApplicationListener<ContextClosedEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramRunnersConsumerImpl.class);
+
+    private static final int MAX_PARALLELISM = Math.max(Runtime.getRuntime().availableProcessors(), 2);
 
     private final ClientAuthorizationState authorizationState;
 
@@ -26,9 +52,9 @@ public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsume
 
     private final ApplicationContext applicationContext;
 
-    private final AtomicBoolean shutdownSignal = new AtomicBoolean();
+    private final CompletableFuture<Void> shutdownSignal = new CompletableFuture<>();
 
-    private record OrderedTelegramRunner(int order, TelegramRunner telegramRunner) { }
+    private record OrderedTelegramRunner(int order, String name, TelegramRunner telegramRunner) { }
 
     public TelegramRunnersConsumerImpl(ClientAuthorizationState authorizationState,
                                        ApplicationArguments applicationArguments,
@@ -36,26 +62,34 @@ public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsume
         this.authorizationState = authorizationState;
         this.applicationArguments = applicationArguments;
         this.applicationContext = applicationContext;
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownSignal.set(true)));
+    }
+
+    /**
+     * Releases runners awaiting the authorization, the context is closed e.g. by the shutdown hook of the application.
+     *
+     * @param event closed event of the application context, events of other contexts are ignored
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        if (event.getApplicationContext() == applicationContext) {
+            shutdownSignal.complete(null);
+        }
     }
 
     @Override
     public void accept(Collection<TelegramRunner> telegramRunners) {
-        if (!telegramRunners.isEmpty()) {
-            awaitAuthorizationStateReady();
+        if (!telegramRunners.isEmpty() && awaitAuthorizationStateReady()) {
             runAll(telegramRunners);
         }
     }
 
-    private void awaitAuthorizationStateReady() {
-        while (!authorizationState.haveAuthorization() && !shutdownSignal.get()) {
-            /*wait for authorization*/
-            try {
-                TimeUnit.MILLISECONDS.sleep(200);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    /*
+     * Released by AuthorizationStateReady, runners are skipped if the context is closed before it
+     */
+    private boolean awaitAuthorizationStateReady() {
+        CompletableFuture<Void> ready = authorizationState.authorizationReady();
+        CompletableFuture.anyOf(ready, shutdownSignal).join();
+        return ready.isDone();
     }
 
     private void runAll(Collection<TelegramRunner> telegramRunners) {
@@ -64,23 +98,78 @@ public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsume
         Map<TelegramRunner, String> objToBeanName = new HashMap<>();
         beanNameToObj.forEach((k, v) -> objToBeanName.put(v, k));
 
-        var runnerComparator = Comparator.comparing(OrderedTelegramRunner::order);
-        telegramRunners.stream()
+        Map<Integer, List<OrderedTelegramRunner>> orders = telegramRunners.stream()
                 .map(telegramRunner -> getOrderedTelegramRunner(beanFactory, objToBeanName, telegramRunner))
-                .sorted(runnerComparator)
-                .forEach(orderedTelegramRunner -> {
-                    try {
-                        orderedTelegramRunner.telegramRunner.run(applicationArguments);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+                .collect(Collectors.groupingBy(OrderedTelegramRunner::order, TreeMap::new, Collectors.toList()));
+        int parallelism = Math.min(orders.values().stream().mapToInt(List::size).max().orElse(1), MAX_PARALLELISM);
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, threadFactory()) : null;
+        try {
+            for (List<OrderedTelegramRunner> runners : orders.values()) {
+                runOrder(runners, executor);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void runOrder(List<OrderedTelegramRunner> runners, ExecutorService executor) {
+        List<Exception> failures = new ArrayList<>();
+        if (runners.size() == 1) {
+            Exception failure = run(runners.get(0));
+            if (failure != null) {
+                failures.add(failure);
+            }
+        } else {
+            runners.stream()
+                    .map(runner -> CompletableFuture.supplyAsync(() -> run(runner), executor))
+                    .toList()
+                    .forEach(future -> {
+                        Exception failure = future.join();
+                        if (failure != null) {
+                            failures.add(failure);
+                        }
+                    });
+        }
+        if (!failures.isEmpty()) {
+            var exception = new TelegramRunnerException(failures.size() + " telegram runner(s) of order " +
+                    runners.get(0).order + " failed, runners of the next orders are skipped", failures.get(0));
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private Exception run(OrderedTelegramRunner runner) {
+        long startedAt = System.nanoTime();
+        try {
+            runner.telegramRunner.run(applicationArguments);
+            log.info("Telegram runner {} finished in {} ms", runner.name, elapsedMillis(startedAt));
+            return null;
+        } catch (Exception e) {
+            log.error("Telegram runner {} failed in {} ms", runner.name, elapsedMillis(startedAt), e);
+            return e;
+        }
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    private static ThreadFactory threadFactory() {
+        var counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "Telegram runner-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     private OrderedTelegramRunner getOrderedTelegramRunner(ConfigurableListableBeanFactory beanFactory,
                                                            Map<TelegramRunner, String> objToBeanName,
                                                            TelegramRunner telegramRunner) {
-        RootBeanDefinition rootBeanDefinition = (RootBeanDefinition) beanFactory.getMergedBeanDefinition(objToBeanName.get(telegramRunner));
+        String beanName = objToBeanName.get(telegramRunner);
+        RootBeanDefinition rootBeanDefinition = (RootBeanDefinition) beanFactory.getMergedBeanDefinition(beanName);
         int order;
         if (rootBeanDefinition.getResolvedFactoryMethod() != null &&
                 rootBeanDefinition.getResolvedFactoryMethod().getAnnotation(Order.class) != null) {
@@ -88,7 +177,7 @@ public final class TelegramRunnersConsumerImpl implements TelegramRunnersConsume
         } else {
             order = OrderUtils.getOrder(telegramRunner.getClass(), Ordered.LOWEST_PRECEDENCE); // annotation on class name or default
         }
-        return new OrderedTelegramRunner(order, telegramRunner);
+        return new OrderedTelegramRunner(order, beanName, telegramRunner);
     }
 
 }
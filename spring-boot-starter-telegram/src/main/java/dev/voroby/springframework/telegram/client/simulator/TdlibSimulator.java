@@ -0,0 +1,282 @@
+package dev.voroby.springframework.telegram.client.simulator;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.Client;
+import org.drinkless.tdlib.TdApi;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process simulator of TDLib, a {@link Client.Transport} for tests and load experiments
+ * without the TDLib binary and a Telegram account.
+ * <ul>
+ *     <li>authorization is completed by {@link TdApi.SetTdlibParameters},
+ *     {@link TdApi.Close} and {@link TdApi.LogOut} move the client to the closed state</li>
+ *     <li>{@link TdApi.GetChat}, {@link TdApi.GetChatHistory} and {@link TdApi.GetFile} are answered with
+ *     synthetic objects after the configured latency, other queries are answered with an error</li>
+ *     <li>{@link TdApi.UpdateNewMessage} updates of synthetic chats are emitted at the configured rate
+ *     to every authorized client</li>
+ * </ul>
+ * Events are never awaited by the simulator, because {@link #send} may be called from the receive thread.
+ * While the receive loop lags behind by more than {@code 65536} events, updates are skipped and queries
+ * other than the authorization ones are answered with error {@code 429}.
+ *
+ * @author Pavel Vorobyev
+ */
+public final class TdlibSimulator implements Client.Transport {
+
+    /*
+     * Backlog of events after which updates are skipped and queries are answered with 429
+     */
+    private static final int CAPACITY = 1 << 16;
+
+    /*
+     * Number of messages in the history of every chat
+     */
+    private static final long HISTORY = 1000;
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TDLib simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ClassValue<Long> latencies;
+
+    private final int updatesPerSecond;
+
+    private final int chats;
+
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    private final Set<Integer> startedClients = ConcurrentHashMap.newKeySet();
+
+    private final List<Integer> authorizedClients = new CopyOnWriteArrayList<>();
+
+    private long updatesStartedAt;
+
+    private long emittedUpdates;
+
+    private long lastMessageId = HISTORY;
+
+    /**
+     * @param settings latencies of queries and the rate of updates
+     */
+    public TdlibSimulator(TelegramProperties.Simulator settings) {
+        Duration defaultLatency = settings != null && settings.latency() != null ? settings.latency() : Duration.ZERO;
+        Map<String, Duration> functions = settings != null && settings.functions() != null ?
+                Map.copyOf(settings.functions()) : Map.of();
+        this.latencies = new ClassValue<>() {
+            @Override
+            protected Long computeValue(Class<?> type) {
+                return functions.getOrDefault(type.getSimpleName(), defaultLatency).toNanos();
+            }
+        };
+        this.updatesPerSecond = settings != null ? Math.max(settings.updatesPerSecond(), 0) : 0;
+        this.chats = settings != null && settings.chats() > 0 ? settings.chats() : 100;
+        if (updatesPerSecond > 0) {
+            long period = Math.max(TimeUnit.SECONDS.toNanos(1) / updatesPerSecond, TICK_NANOS);
+            updatesStartedAt = System.nanoTime();
+            scheduler.scheduleAtFixedRate(this::emitUpdates, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int createClient() {
+        return clientCount.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(int nativeClientId, long eventId, TdApi.Function function) {
+        if (startedClients.add(nativeClientId)) {
+            // like TDLib, the client is started by the first query
+            emit(nativeClientId, new TdApi.UpdateAuthorizationState(new TdApi.AuthorizationStateWaitTdlibParameters()));
+        }
+        long latency = latencies.get(function.getClass());
+        if (latency > 0) {
+            scheduler.schedule(() -> answer(nativeClientId, eventId, function), latency, TimeUnit.NANOSECONDS);
+        } else {
+            answer(nativeClientId, eventId, function);
+        }
+    }
+
+    private void answer(int clientId, long eventId, TdApi.Function function) {
+        if (overflowed() && !isAuthorizationQuery(function)) {
+            offer(clientId, eventId, new TdApi.Error(429, "Too Many Requests: retry after 1"));
+            return;
+        }
+        switch (function.getConstructor()) {
+            case TdApi.SetTdlibParameters.CONSTRUCTOR -> {
+                offer(clientId, eventId, new TdApi.Ok());
+                authorizedClients.add(clientId);
+                emit(clientId, new TdApi.UpdateAuthorizationState(new TdApi.AuthorizationStateReady()));
+            }
+            case TdApi.Close.CONSTRUCTOR, TdApi.LogOut.CONSTRUCTOR -> {
+                offer(clientId, eventId, new TdApi.Ok());
+                authorizedClients.remove((Integer) clientId);
+                emit(clientId, new TdApi.UpdateAuthorizationState(new TdApi.AuthorizationStateClosing()));
+                emit(clientId, new TdApi.UpdateAuthorizationState(new TdApi.AuthorizationStateClosed()));
+            }
+            case TdApi.GetChat.CONSTRUCTOR -> offer(clientId, eventId, chat(((TdApi.GetChat) function).chatId));
+            case TdApi.GetChatHistory.CONSTRUCTOR -> offer(clientId, eventId, chatHistory((TdApi.GetChatHistory) function));
+            case TdApi.GetFile.CONSTRUCTOR -> offer(clientId, eventId, file(((TdApi.GetFile) function).fileId));
+            default -> offer(clientId, eventId,
+                    new TdApi.Error(400, "Function is not supported by the simulator: " + function.getClass().getSimpleName()));
+        }
+    }
+
+    private static boolean isAuthorizationQuery(TdApi.Function function) {
+        return switch (function.getConstructor()) {
+            case TdApi.SetTdlibParameters.CONSTRUCTOR, TdApi.Close.CONSTRUCTOR, TdApi.LogOut.CONSTRUCTOR -> true;
+            default -> false;
+        };
+    }
+
+    private boolean overflowed() {
+        return events.size() >= CAPACITY;
+    }
+
+    private TdApi.Chat chat(long chatId) {
+        var chatType = new TdApi.ChatTypePrivate();
+        chatType.userId = chatId;
+        var chat = new TdApi.Chat();
+        chat.id = chatId;
+        chat.type = chatType;
+        chat.title = "Chat " + chatId;
+        chat.positions = new TdApi.ChatPosition[0];
+        return chat;
+    }
+
+    private TdApi.Messages chatHistory(TdApi.GetChatHistory query) {
+        long newest = query.fromMessageId > 0 ? Math.min(query.fromMessageId - query.offset, HISTORY) : HISTORY;
+        int limit = (int) Math.max(Math.min(Math.min(query.limit, 100), newest), 0);
+        var messages = new TdApi.Messages();
+        messages.messages = new TdApi.Message[limit];
+        for (int i = 0; i < limit; i++) {
+            messages.messages[i] = message(query.chatId, newest - i);
+        }
+        messages.totalCount = limit;
+        return messages;
+    }
+
+    private TdApi.File file(int fileId) {
+        var local = new TdApi.LocalFile();
+        local.path = "";
+        local.canBeDownloaded = true;
+        var file = new TdApi.File();
+        file.id = fileId;
+        file.size = 1 << 20;
+        file.local = local;
+        return file;
+    }
+
+    private TdApi.Message message(long chatId, long messageId) {
+        var text = new TdApi.FormattedText();
+        text.text = "Message " + messageId;
+        var content = new TdApi.MessageText();
+        content.text = text;
+        var message = new TdApi.Message();
+        message.id = messageId;
+        message.chatId = chatId;
+        message.date = (int) TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        message.content = content;
+        return message;
+    }
+
+    /*
+     * Runs on the simulator thread, catches up with the configured rate if the thread is late
+     */
+    private void emitUpdates() {
+        long due = (long) ((System.nanoTime() - updatesStartedAt) / 1e9 * updatesPerSecond);
+        for (; emittedUpdates < due; emittedUpdates++) {
+            if (overflowed()) {
+                continue;
+            }
+            long chatId = emittedUpdates % chats + 1;
+            for (Integer clientId : authorizedClients) {
+                emit(clientId, new TdApi.UpdateNewMessage(message(chatId, ++lastMessageId)));
+            }
+        }
+    }
+
+    private void emit(int clientId, TdApi.Update update) {
+        offer(clientId, 0, update);
+    }
+
+    private void offer(int clientId, long eventId, TdApi.Object object) {
+        events.offer(new Event(clientId, eventId, object));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int receive(int[] clientIds, long[] eventIds, TdApi.Object[] events, double timeout) {
+        try {
+            Event event = this.events.poll((long) (timeout * TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+            int n = 0;
+            while (event != null) {
+                clientIds[n] = event.clientId();
+                eventIds[n] = event.eventId();
+                events[n] = event.object();
+                if (++n == events.length) {
+                    break;
+                }
+                event = this.events.poll();
+            }
+            return n;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TdApi.Object execute(TdApi.Function function) {
+        if (function instanceof TdApi.SetLogVerbosityLevel) {
+            return new TdApi.Ok();
+        }
+        return new TdApi.Error(400, "Function is not supported by the simulator: " + function.getClass().getSimpleName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLogMessageHandler(int maxVerbosityLevel, Client.LogMessageHandler logMessageHandler) {
+    }
+
+    /**
+     * @return number of events waiting for the receive loop
+     */
+    public int backlog() {
+        return events.size();
+    }
+
+    private record Event(int clientId, long eventId, TdApi.Object object) {}
+
+}
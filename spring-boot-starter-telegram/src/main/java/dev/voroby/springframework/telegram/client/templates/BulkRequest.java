@@ -0,0 +1,78 @@
+package dev.voroby.springframework.telegram.client.templates;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import org.drinkless.tdlib.TdApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+
+/**
+ * Queries of many identifiers pipelined by {@link TelegramClient#sendAll(List, int)} with at most {@code window}
+ * queries in flight. Cached objects are returned without a query, a failed query doesn't fail the others,
+ * its error is the response of its identifier.
+ *
+ * @author Pavel Vorobyev
+ */
+final class BulkRequest {
+
+    /**
+     * Default number of queries in flight of a bulk operation.
+     */
+    static final int DEFAULT_WINDOW = 32;
+
+    private BulkRequest() {
+    }
+
+    /**
+     * @param telegramClient client sending the queries
+     * @param ids identifiers, duplicates are queried once
+     * @param window max number of queries in flight
+     * @param cached cached object of an identifier
+     * @param query query of an identifier
+     * @return future of an unmodifiable map of responses by identifier in the order of identifiers
+     * @throws IllegalArgumentException if window isn't positive
+     */
+    static <T extends TdApi.Object> CompletableFuture<Map<Long, Response<T>>> send(TelegramClient telegramClient,
+                                                                                   long[] ids,
+                                                                                   int window,
+                                                                                   LongFunction<Optional<T>> cached,
+                                                                                   LongFunction<? extends TdApi.Function<T>> query) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        long[] distinct = Arrays.stream(ids).distinct().toArray();
+        if (distinct.length == 0) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        var responses = new LinkedHashMap<Long, Response<T>>(distinct.length * 4 / 3 + 1);
+        var queriedIds = new long[distinct.length];
+        var queries = new ArrayList<TdApi.Function<T>>();
+        for (long id : distinct) {
+            Optional<T> object = cached.apply(id);
+            // placeholder keeps the order of identifiers
+            responses.put(id, object.map(value -> new Response<>(value, null)).orElse(null));
+            if (object.isEmpty()) {
+                queriedIds[queries.size()] = id;
+                queries.add(query.apply(id));
+            }
+        }
+        if (queries.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.unmodifiableMap(responses));
+        }
+        return telegramClient.sendAll(queries, window).thenApply(results -> {
+            for (int i = 0; i < results.size(); i++) {
+                responses.put(queriedIds[i], results.get(i));
+            }
+            return Collections.unmodifiableMap(responses);
+        });
+    }
+
+}
@@ -2,13 +2,17 @@ package dev.voroby.springframework.telegram.client.templates;
 
 import org.drinkless.tdlib.TdApi;
 import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramObjectCache;
 import dev.voroby.springframework.telegram.client.templates.response.Response;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * This class simplifies the use of {@link TelegramClient} for chat related objects.
+ * Chats and supergroups are read from the {@link TelegramObjectCache} if caching is enabled.
  *
  * @author Pavel Vorobyev
  */
@@ -27,9 +31,17 @@ public class ChatTemplate {
      * @return {@link CompletableFuture<Response<TdApi.Chat>>}.
      */
     public CompletableFuture<Response<TdApi.Chat>> getChat(long chatId) {
+        Optional<TdApi.Chat> chat = cachedChat(chatId);
+        if (chat.isPresent()) {
+            return CompletableFuture.completedFuture(new Response<>(chat.get(), null));
+        }
         return telegramClient.sendAsync(new TdApi.GetChat(chatId));
     }
 
+    private Optional<TdApi.Chat> cachedChat(long chatId) {
+        return telegramClient.getObjectCache().flatMap(cache -> cache.getChat(chatId));
+    }
+
     /**
      * Adds the current user as a new member to a chat. Private and secret chats can't be joined using this method.
      * May return an error with a message "INVITE_REQUEST_SENT" if only a join request was created.
@@ -129,9 +141,17 @@ public class ChatTemplate {
      * @return {@link CompletableFuture<Response<TdApi.Supergroup>>}.
      */
     public CompletableFuture<Response<TdApi.Supergroup>> getSupergroup(long supergroupId) {
+        Optional<TdApi.Supergroup> supergroup = cachedSupergroup(supergroupId);
+        if (supergroup.isPresent()) {
+            return CompletableFuture.completedFuture(new Response<>(supergroup.get(), null));
+        }
         return telegramClient.sendAsync(new TdApi.GetSupergroup(supergroupId));
     }
 
+    private Optional<TdApi.Supergroup> cachedSupergroup(long supergroupId) {
+        return telegramClient.getObjectCache().flatMap(cache -> cache.getSupergroup(supergroupId));
+    }
+
     /**
      * Returns full information about a supergroup or a channel by its identifier, cached for up to 1 minute.
      *
@@ -142,4 +162,84 @@ public class ChatTemplate {
         return telegramClient.sendAsync(new TdApi.GetSupergroupFullInfo(supergroupId));
     }
 
+    /**
+     * Returns chats by their identifiers, queries are pipelined with at most
+     * 32 of them in flight. Cached chats are returned without a query.
+     *
+     * @param chatIds Chat identifiers.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.Chat>>> getChats(long[] chatIds) {
+        return getChats(chatIds, BulkRequest.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns chats by their identifiers, queries are pipelined with at most {@code window} of them in flight.
+     *
+     * @param chatIds Chat identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.Chat>>> getChats(long[] chatIds, int window) {
+        Objects.requireNonNull(chatIds);
+        return BulkRequest.send(telegramClient, chatIds, window, this::cachedChat, TdApi.GetChat::new);
+    }
+
+    /**
+     * Returns supergroups or channels by their identifiers, queries are pipelined with at most
+     * 32 of them in flight. Cached supergroups are returned without a query.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.Supergroup>>> getSupergroups(long[] supergroupIds) {
+        return getSupergroups(supergroupIds, BulkRequest.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns supergroups or channels by their identifiers,
+     * queries are pipelined with at most {@code window} of them in flight.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.Supergroup>>> getSupergroups(long[] supergroupIds, int window) {
+        Objects.requireNonNull(supergroupIds);
+        return BulkRequest.send(telegramClient, supergroupIds, window, this::cachedSupergroup,
+                TdApi.GetSupergroup::new);
+    }
+
+    /**
+     * Returns full information about supergroups or channels by their identifiers, queries are pipelined with at most
+     * 32 of them in flight.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.SupergroupFullInfo>>> getSupergroupFullInfos(long[] supergroupIds) {
+        return getSupergroupFullInfos(supergroupIds, BulkRequest.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns full information about supergroups or channels by their identifiers,
+     * queries are pipelined with at most {@code window} of them in flight.
+     *
+     * @param supergroupIds Supergroup or channel identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.SupergroupFullInfo>>> getSupergroupFullInfos(long[] supergroupIds,
+                                                                                                   int window) {
+        Objects.requireNonNull(supergroupIds);
+        return BulkRequest.send(telegramClient, supergroupIds, window, id -> Optional.empty(),
+                TdApi.GetSupergroupFullInfo::new);
+    }
+
 }
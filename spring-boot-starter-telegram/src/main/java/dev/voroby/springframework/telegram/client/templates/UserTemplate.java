@@ -2,13 +2,17 @@ package dev.voroby.springframework.telegram.client.templates;
 
 import org.drinkless.tdlib.TdApi;
 import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramObjectCache;
 import dev.voroby.springframework.telegram.client.templates.response.Response;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * This class simplifies the use of {@link TelegramClient} for {@link TdApi.User} related objects.
+ * Users are read from the {@link TelegramObjectCache} if caching is enabled.
  *
  * @author Pavel Vorobyev
  */
@@ -27,9 +31,17 @@ public class UserTemplate {
      * @return {@link CompletableFuture<Response<TdApi.User>>}.
      */
     public CompletableFuture<Response<TdApi.User>> getUser(long userId) {
+        Optional<TdApi.User> user = cachedUser(userId);
+        if (user.isPresent()) {
+            return CompletableFuture.completedFuture(new Response<>(user.get(), null));
+        }
         return telegramClient.sendAsync(new TdApi.GetUser(userId));
     }
 
+    private Optional<TdApi.User> cachedUser(long userId) {
+        return telegramClient.getObjectCache().flatMap(cache -> cache.getUser(userId));
+    }
+
     /**
      * Returns full information about a user by their identifier.
      *
@@ -137,4 +149,55 @@ public class UserTemplate {
                 });
     }
 
+    /**
+     * Returns users by their identifiers, queries are pipelined with at most
+     * 32 of them in flight. Cached users are returned without a query.
+     *
+     * @param userIds User identifiers.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.User>>> getUsers(long[] userIds) {
+        return getUsers(userIds, BulkRequest.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns users by their identifiers, queries are pipelined with at most {@code window} of them in flight.
+     *
+     * @param userIds User identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.User>>> getUsers(long[] userIds, int window) {
+        Objects.requireNonNull(userIds);
+        return BulkRequest.send(telegramClient, userIds, window, this::cachedUser, TdApi.GetUser::new);
+    }
+
+    /**
+     * Returns full information about users by their identifiers, queries are pipelined with at most
+     * 32 of them in flight.
+     *
+     * @param userIds User identifiers.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.UserFullInfo>>> getUserFullInfos(long[] userIds) {
+        return getUserFullInfos(userIds, BulkRequest.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns full information about users by their identifiers,
+     * queries are pipelined with at most {@code window} of them in flight.
+     *
+     * @param userIds User identifiers.
+     * @param window The maximum number of queries in flight.
+     * @return {@link CompletableFuture<Map>} of responses by identifier, the map is unmodifiable,
+     * a failed query is reported by the {@link Response} of its identifier.
+     */
+    public CompletableFuture<Map<Long, Response<TdApi.UserFullInfo>>> getUserFullInfos(long[] userIds, int window) {
+        Objects.requireNonNull(userIds);
+        return BulkRequest.send(telegramClient, userIds, window, id -> Optional.empty(), TdApi.GetUserFullInfo::new);
+    }
+
 }
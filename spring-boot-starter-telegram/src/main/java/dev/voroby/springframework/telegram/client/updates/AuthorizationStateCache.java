@@ -1,28 +1,92 @@
 package dev.voroby.springframework.telegram.client.updates;
 
+import org.drinkless.tdlib.TdApi;
+
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Authorization state of one client, shared by {@link ClientAuthorizationStateImpl}
+ * and {@link UpdateAuthorizationState} of the client.
+ */
 final class AuthorizationStateCache {
 
-    static final AtomicBoolean haveAuthorization = new AtomicBoolean();
+    final AtomicBoolean haveAuthorization = new AtomicBoolean();
 
-    static final AtomicBoolean waitAuthenticationCode = new AtomicBoolean();
+    final AtomicBoolean stateClosed = new AtomicBoolean();
 
-    static final AtomicBoolean waitAuthenticationPassword = new AtomicBoolean();
+    /*
+     * Last authorization state received from TDLib
+     */
+    volatile TdApi.AuthorizationState state;
 
-    static final AtomicBoolean waitEmailAddress = new AtomicBoolean();
+    /*
+     * Completed by AuthorizationStateReady, replaced when the client loses the authorization
+     */
+    volatile CompletableFuture<Void> authorization = new CompletableFuture<>();
 
-    static final AtomicBoolean stateClosed = new AtomicBoolean();
+    /*
+     * Completed by AuthorizationStateClosed, the final state of the client
+     */
+    final CompletableFuture<Void> closed = new CompletableFuture<>();
 
     /*
-     * codeInputToCheck/passwordInputToCheck/emailAddressInputToCheck will be cleaned up after check
+     * Authentication code from another logged in client, SMS or email
      */
-    static volatile String codeInputToCheck;
+    final Input code = new Input();
 
-    static volatile String passwordInputToCheck;
+    final Input password = new Input();
 
-    static volatile String emailAddressInputToCheck;
+    final Input emailAddress = new Input();
 
-    private AuthorizationStateCache() {
+    /**
+     * Input of the user awaited by the authorization state. The state handler registers the action on the future
+     * and returns, the input completes the future and the action sends the input to TDLib on the caller thread.
+     */
+    static final class Input {
+
+        private CompletableFuture<String> awaited;
+
+        /**
+         * @return future completed by the next input, replaces the future awaited before
+         */
+        synchronized CompletableFuture<String> await() {
+            if (awaited != null) {
+                awaited.cancel(false);
+            }
+            awaited = new CompletableFuture<>();
+            return awaited;
+        }
+
+        /**
+         * @return input is awaited and hasn't been given yet
+         */
+        synchronized boolean isAwaited() {
+            return awaited != null && !awaited.isDone();
+        }
+
+        /**
+         * @param value input of the user
+         * @return input was awaited and is accepted
+         */
+        boolean complete(String value) {
+            CompletableFuture<String> future;
+            synchronized (this) {
+                future = awaited;
+                awaited = null;
+            }
+            return future != null && future.complete(value);
+        }
+
+        /**
+         * Stops awaiting the input, e.g. after the authorization state has changed.
+         */
+        synchronized void cancel() {
+            if (awaited != null) {
+                awaited.cancel(false);
+                awaited = null;
+            }
+        }
     }
+
 }
@@ -0,0 +1,46 @@
+package dev.voroby.springframework.telegram.client.updates;
+
+import org.drinkless.tdlib.TdApi;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Interface for incoming updates from TDLib handled in batches.
+ * By default, a batch contains all updates of the type received from TDLib in one receive cycle.
+ * With positive {@link #maxBatchDelay()} updates are collected across receive cycles into a time window,
+ * which is closed when the delay since the first update of the batch elapses or the batch is full.
+ * Batches of time windows are handled off the TDLib thread even in caller thread dispatch mode.
+ * @param <T> type of update
+ *
+ * @author Pavel Vorobyev
+ */
+public interface BatchUpdateListener<T extends TdApi.Update> {
+
+    /**
+     * Handles a batch of incoming updates.
+     *
+     * @param notifications non-empty list of updates in the order received from TDLib
+     */
+    void handleNotifications(List<T> notifications);
+
+    /**
+     * @return listener class type
+     */
+    Class<T> notificationType();
+
+    /**
+     * @return max number of updates in a batch, a full batch is handled immediately
+     */
+    default int maxBatchSize() {
+        return 1000;
+    }
+
+    /**
+     * @return max delay of the first update in a batch, zero to handle a batch at the end of each receive cycle
+     */
+    default Duration maxBatchDelay() {
+        return Duration.ZERO;
+    }
+
+}
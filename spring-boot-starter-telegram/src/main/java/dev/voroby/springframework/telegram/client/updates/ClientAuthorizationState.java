@@ -2,11 +2,14 @@ package dev.voroby.springframework.telegram.client.updates;
 
 import org.drinkless.tdlib.TdApi;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Authorization state of the client.
  * Used for client authorization when {@link TdApi.UpdateAuthorizationState} notification
  * received from TDLib.
- * Check functions will not take effect after `UpdateAuthorizationState` have been processed.
+ * Check functions take effect only while the client awaits the input, the input is sent to TDLib
+ * on the calling thread.
  *
  * @author Pavel Vorobyev
  */
@@ -52,10 +55,26 @@ public sealed interface ClientAuthorizationState permits ClientAuthorizationStat
      */
     boolean haveAuthorization();
 
+    /**
+     * @return last authorization state received from TDLib, null before the first one
+     */
+    TdApi.AuthorizationState authorizationState();
+
+    /**
+     * @return future completed when {@link TdApi.AuthorizationStateReady} is received,
+     * it is already completed if the client is authorized
+     */
+    CompletableFuture<Void> authorizationReady();
+
     /**
      * All databases are closed and all resources are released. No other updates will be received after this.
      * All queries will be responded to with error code 500.
      * @return is TDLib client in its final state
      */
     boolean isStateClosed();
+
+    /**
+     * @return future completed when {@link TdApi.AuthorizationStateClosed} is received
+     */
+    CompletableFuture<Void> closed();
 }
@@ -1,68 +1,84 @@
 package dev.voroby.springframework.telegram.client.updates;
 
-import static dev.voroby.springframework.telegram.client.updates.AuthorizationStateCache.*;
+import org.drinkless.tdlib.TdApi;
+
+import java.util.concurrent.CompletableFuture;
+
 import static org.springframework.util.StringUtils.hasText;
 
 /**
  * Implementation of {@link ClientAuthorizationState}.
+ * An awaited input is sent to TDLib by the calling thread, inputs that aren't awaited are ignored.
  *
  * @author Pavel Vorobyev
  */
 public final class ClientAuthorizationStateImpl implements ClientAuthorizationState {
 
+    private final AuthorizationStateCache cache = new AuthorizationStateCache();
+
     @Override
-    public synchronized void checkAuthenticationCode(String code) {
-        if (waitAuthenticationCode.get()) {
-            if (hasText(code)) {
-                AuthorizationStateCache.codeInputToCheck = code;
-                waitAuthenticationCode.set(false);
-            }
+    public void checkAuthenticationCode(String code) {
+        if (hasText(code)) {
+            cache.code.complete(code);
         }
     }
 
     @Override
-    public synchronized void checkAuthenticationPassword(String password) {
-        if (waitAuthenticationPassword.get()) {
-            if (hasText(password)) {
-                AuthorizationStateCache.passwordInputToCheck = password;
-                waitAuthenticationPassword.set(false);
-            }
+    public void checkAuthenticationPassword(String password) {
+        if (hasText(password)) {
+            cache.password.complete(password);
         }
     }
 
     @Override
-    public synchronized void checkEmailAddress(String email) {
-        if (waitEmailAddress.get()) {
-            if (hasText(email)) {
-                AuthorizationStateCache.emailAddressInputToCheck = email;
-                waitEmailAddress.set(false);
-            }
+    public void checkEmailAddress(String email) {
+        if (hasText(email)) {
+            cache.emailAddress.complete(email);
         }
     }
 
     @Override
     public boolean isWaitAuthenticationCode() {
-        return waitAuthenticationCode.get();
+        return cache.code.isAwaited();
     }
 
     @Override
     public boolean isWaitAuthenticationPassword() {
-        return waitAuthenticationPassword.get();
+        return cache.password.isAwaited();
     }
 
     @Override
     public boolean isWaitEmailAddress() {
-        return waitEmailAddress.get();
+        return cache.emailAddress.isAwaited();
     }
 
     @Override
     public boolean haveAuthorization() {
-        return haveAuthorization.get();
+        return cache.haveAuthorization.get();
+    }
+
+    @Override
+    public CompletableFuture<Void> authorizationReady() {
+        return cache.authorization.copy();
+    }
+
+    @Override
+    public TdApi.AuthorizationState authorizationState() {
+        return cache.state;
+    }
+
+    @Override
+    public CompletableFuture<Void> closed() {
+        return cache.closed.copy();
     }
 
     @Override
     public boolean isStateClosed() {
-        return stateClosed.get();
+        return cache.stateClosed.get();
+    }
+
+    AuthorizationStateCache cache() {
+        return cache;
     }
 
 }
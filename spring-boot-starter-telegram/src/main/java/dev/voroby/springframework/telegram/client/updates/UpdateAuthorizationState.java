@@ -10,19 +10,21 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
-import static dev.voroby.springframework.telegram.client.updates.AuthorizationStateCache.*;
 import static org.springframework.util.StringUtils.hasText;
 
 /**
  * Handler of {@link TdApi.AuthorizationState} updates.
+ * States awaiting an input of the user don't block the TDLib thread: the input is awaited by a future
+ * completed by {@link ClientAuthorizationState}, the completion sends the input to TDLib.
+ * If TDLib rejects the input, e.g. a wrong code, the input is awaited again.
  */
 public class UpdateAuthorizationState implements UpdateNotificationListener<TdApi.UpdateAuthorizationState> {
 
     private final Logger log = LoggerFactory.getLogger(UpdateAuthorizationState.class);
 
-    private TdApi.AuthorizationState authorizationState;
+    private volatile TdApi.AuthorizationState authorizationState;
 
     private final TelegramProperties properties;
 
@@ -30,11 +32,20 @@ public class UpdateAuthorizationState implements UpdateNotificationListener<TdAp
 
     private final AuthorizationRequestHandler authorizationRequestHandler;
 
+    private final AuthorizationStateCache cache;
+
+    /**
+     * @param properties properties of the client
+     * @param telegramClient client receiving the updates
+     * @param clientAuthorizationState authorization state of the client
+     */
     public UpdateAuthorizationState(TelegramProperties properties,
-                                    TelegramClient telegramClient) {
+                                    TelegramClient telegramClient,
+                                    ClientAuthorizationState clientAuthorizationState) {
         this.properties = properties;
         this.telegramClient = telegramClient;
         this.authorizationRequestHandler = new AuthorizationRequestHandler();
+        this.cache = ((ClientAuthorizationStateImpl) clientAuthorizationState).cache();
     }
 
     /**
@@ -45,20 +56,42 @@ public class UpdateAuthorizationState implements UpdateNotificationListener<TdAp
         Optional.ofNullable(notification).ifPresent(this::processNotification);
     }
 
-    private void processNotification(TdApi.UpdateAuthorizationState notification) {
+    private synchronized void processNotification(TdApi.UpdateAuthorizationState notification) {
         TdApi.AuthorizationState newAuthorizationState = notification.authorizationState;
         if (newAuthorizationState != null) {
             this.authorizationState = newAuthorizationState;
+            cache.state = newAuthorizationState;
+        }
+        handleAuthorizationState();
+    }
+
+    /*
+     * Called when a query sent by the current state fails. States awaiting an input of the user await it again,
+     * queries of other states aren't repeated, they would fail the same way
+     */
+    private synchronized void retryAuthorizationState() {
+        switch (this.authorizationState.getConstructor()) {
+            case TdApi.AuthorizationStateWaitCode.CONSTRUCTOR,
+                 TdApi.AuthorizationStateWaitPassword.CONSTRUCTOR,
+                 TdApi.AuthorizationStateWaitEmailAddress.CONSTRUCTOR,
+                 TdApi.AuthorizationStateWaitEmailCode.CONSTRUCTOR -> handleAuthorizationState();
+            default -> {}
         }
+    }
+
+    private void handleAuthorizationState() {
+        cache.code.cancel();
+        cache.password.cancel();
+        cache.emailAddress.cancel();
         switch (this.authorizationState.getConstructor()) {
             case TdApi.AuthorizationStateWaitTdlibParameters.CONSTRUCTOR -> setTdlibParameters();
             case TdApi.AuthorizationStateWaitPhoneNumber.CONSTRUCTOR -> sendAuthenticationPhoneNumber();
             case TdApi.AuthorizationStateWaitOtherDeviceConfirmation.CONSTRUCTOR -> logOtherDeviceConfirmationLink();
-            case TdApi.AuthorizationStateWaitCode.CONSTRUCTOR -> waitAndSendAuthenticationCode();
-            case TdApi.AuthorizationStateWaitPassword.CONSTRUCTOR -> waitAndSendAuthenticationPassword();
-            case TdApi.AuthorizationStateWaitEmailAddress.CONSTRUCTOR -> waitAndSendAuthenticationEmailAddress();
-            case TdApi.AuthorizationStateWaitEmailCode.CONSTRUCTOR -> waitAndSendAuthenticationEmailCode();
-            case TdApi.AuthorizationStateReady.CONSTRUCTOR -> haveAuthorization.set(true);
+            case TdApi.AuthorizationStateWaitCode.CONSTRUCTOR -> awaitAuthenticationCode();
+            case TdApi.AuthorizationStateWaitPassword.CONSTRUCTOR -> awaitAuthenticationPassword();
+            case TdApi.AuthorizationStateWaitEmailAddress.CONSTRUCTOR -> awaitAuthenticationEmailAddress();
+            case TdApi.AuthorizationStateWaitEmailCode.CONSTRUCTOR -> awaitAuthenticationEmailCode();
+            case TdApi.AuthorizationStateReady.CONSTRUCTOR -> authorized();
             case TdApi.AuthorizationStateLoggingOut.CONSTRUCTOR -> resetAuthorization("Logging out");
             case TdApi.AuthorizationStateClosing.CONSTRUCTOR -> resetAuthorization("Closing");
             case TdApi.AuthorizationStateClosed.CONSTRUCTOR -> closeState();
@@ -86,78 +119,48 @@ public class UpdateAuthorizationState implements UpdateNotificationListener<TdAp
         log.info("Please confirm this login link on another device: {}", link);
     }
 
-    private void waitAndSendAuthenticationCode() {
-        try {
-            if (!hasText(codeInputToCheck)) {
-                waitAuthenticationCode.set(true);
-                log.info("Please enter authentication code");
-                while (!hasText(codeInputToCheck)) {
-                    awaitInput();
-                }
-            }
-            var checkAuthenticationCode = new TdApi.CheckAuthenticationCode(codeInputToCheck);
-            telegramClient.sendWithCallback(checkAuthenticationCode, authorizationRequestHandler);
-        } finally {
-            codeInputToCheck = null;
-        }
+    private void awaitAuthenticationCode() {
+        log.info("Please enter authentication code");
+        cache.code.await().thenAccept(code ->
+                telegramClient.sendWithCallback(new TdApi.CheckAuthenticationCode(code), authorizationRequestHandler));
     }
 
-    private void waitAndSendAuthenticationPassword() {
-        try {
-            if (!hasText(passwordInputToCheck)) {
-                waitAuthenticationPassword.set(true);
-                log.info("Please enter password");
-                while (!hasText(passwordInputToCheck)) {
-                    awaitInput();
-                }
-            }
-            var checkAuthenticationPassword = new TdApi.CheckAuthenticationPassword(passwordInputToCheck);
-            telegramClient.sendWithCallback(checkAuthenticationPassword, authorizationRequestHandler);
-        } finally {
-            passwordInputToCheck = null;
-        }
+    private void awaitAuthenticationPassword() {
+        log.info("Please enter password");
+        cache.password.await().thenAccept(password ->
+                telegramClient.sendWithCallback(new TdApi.CheckAuthenticationPassword(password), authorizationRequestHandler));
     }
 
-    private void waitAndSendAuthenticationEmailAddress() {
-        try {
-            if (!hasText(emailAddressInputToCheck)) {
-                waitEmailAddress.set(true);
-                log.info("Please enter email");
-                while (!hasText(emailAddressInputToCheck)) {
-                    awaitInput();
-                }
-            }
-            var setAuthenticationEmailAddress = new TdApi.SetAuthenticationEmailAddress(emailAddressInputToCheck);
-            telegramClient.sendWithCallback(setAuthenticationEmailAddress, authorizationRequestHandler);
-        } finally {
-            emailAddressInputToCheck = null;
-        }
+    private void awaitAuthenticationEmailAddress() {
+        log.info("Please enter email");
+        cache.emailAddress.await().thenAccept(emailAddress ->
+                telegramClient.sendWithCallback(new TdApi.SetAuthenticationEmailAddress(emailAddress), authorizationRequestHandler));
     }
 
-    private void waitAndSendAuthenticationEmailCode() {
-        try {
-            if (!hasText(codeInputToCheck)) {
-                waitAuthenticationCode.set(true);
-                log.info("Please enter authentication code from email");
-                while (!hasText(codeInputToCheck)) {
-                    awaitInput();
-                }
-            }
-            var emailAuth = new TdApi.EmailAddressAuthenticationCode(codeInputToCheck);
-            var checkAuthenticationEmailCode = new TdApi.CheckAuthenticationEmailCode(emailAuth);
-            telegramClient.sendWithCallback(checkAuthenticationEmailCode, authorizationRequestHandler);
-        } finally {
-            codeInputToCheck = null;
-        }
+    private void awaitAuthenticationEmailCode() {
+        log.info("Please enter authentication code from email");
+        cache.code.await().thenAccept(code -> {
+            var emailAuth = new TdApi.EmailAddressAuthenticationCode(code);
+            telegramClient.sendWithCallback(new TdApi.CheckAuthenticationEmailCode(emailAuth), authorizationRequestHandler);
+        });
+    }
+
+    private void authorized() {
+        cache.haveAuthorization.set(true);
+        cache.authorization.complete(null);
     }
 
     private void resetAuthorization(String logMessage) {
-        haveAuthorization.set(false);
+        cache.haveAuthorization.set(false);
+        if (cache.authorization.isDone()) {
+            cache.authorization = new CompletableFuture<>();
+        }
         log.info(logMessage);
     }
 
     private void closeState() {
-        stateClosed.set(true);
+        cache.stateClosed.set(true);
+        cache.closed.complete(null);
         log.info("Closed");
     }
 
@@ -169,15 +172,6 @@ public class UpdateAuthorizationState implements UpdateNotificationListener<TdAp
         return TdApi.UpdateAuthorizationState.class;
     }
 
-    private void awaitInput() {
-        try {
-            TimeUnit.SECONDS.sleep(3);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e.getMessage());
-        }
-    }
-
     /**
      * Configure TDLib parameters.
      * @return {@link TdApi.SetTdlibParameters}
@@ -262,7 +256,7 @@ public class UpdateAuthorizationState implements UpdateNotificationListener<TdAp
         public void onResult(TdApi.Ok obj, TdApi.Error error) {
             if (error != null) {
                 log.error("Receive an error:\n{}", error);
-                handleNotification(null); // repeat last action
+                retryAuthorizationState();
             }
             //result is already received through UpdateAuthorizationState, nothing to do
         }
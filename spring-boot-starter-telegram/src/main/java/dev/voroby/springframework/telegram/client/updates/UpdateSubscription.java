@@ -0,0 +1,16 @@
+package dev.voroby.springframework.telegram.client.updates;
+
+/**
+ * Subscription to updates added by {@link dev.voroby.springframework.telegram.client.TelegramClient#subscribe}.
+ *
+ * @author Pavel Vorobyev
+ */
+public interface UpdateSubscription extends AutoCloseable {
+
+    /**
+     * Stops the updates of the subscription, closing it again has no effect.
+     */
+    @Override
+    void close();
+
+}
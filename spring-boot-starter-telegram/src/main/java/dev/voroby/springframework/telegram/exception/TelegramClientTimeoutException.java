@@ -0,0 +1,30 @@
+package dev.voroby.springframework.telegram.exception;
+
+import org.drinkless.tdlib.TdApi;
+
+import java.time.Duration;
+
+/**
+ * TDLib didn't answer the query before its deadline.
+ * @author Pavel Vorobyev
+ */
+public class TelegramClientTimeoutException extends TelegramClientTdApiException {
+
+    private final Duration timeout;
+
+    /**
+     * @param query {@link TdApi.Function} the original function query that has timed out
+     * @param timeout deadline of the query
+     */
+    public TelegramClientTimeoutException(TdApi.Function<? extends TdApi.Object> query, Duration timeout) {
+        super("TDLib request timeout.", new TdApi.Error(0, "TDLib request timeout."), query);
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return deadline of the query
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,13 @@
+package dev.voroby.springframework.telegram.exception;
+
+/**
+ * Failure of {@link dev.voroby.springframework.telegram.TelegramRunner}s started after authorization.
+ * @author Pavel Vorobyev
+ */
+public class TelegramRunnerException extends RuntimeException {
+
+    public TelegramRunnerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -1,6 +1,11 @@
 package dev.voroby.springframework.telegram.properties;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Telegram client configuration properties.
@@ -25,9 +30,47 @@ public record TelegramProperties(
         String systemVersion,
         String applicationVersion,
         int logVerbosityLevel,
-        Proxy proxy
+        Proxy proxy,
+        Timeouts timeouts,
+        Dispatch dispatch,
+        Simulator simulator,
+        RateLimit rateLimit,
+        Coalescing coalescing,
+        Cache cache,
+        Conflation conflation,
+        Shutdown shutdown,
+        Lanes lanes
 ) {
 
+    @ConstructorBinding
+    public TelegramProperties {}
+
+    /**
+     * Constructor of previous versions, timeouts, dispatch and the other features added since then are disabled.
+     */
+    public TelegramProperties(boolean useTestDc,
+                              String databaseDirectory,
+                              String filesDirectory,
+                              String databaseEncryptionKey,
+                              boolean useFileDatabase,
+                              boolean useChatInfoDatabase,
+                              boolean useMessageDatabase,
+                              boolean useSecretChats,
+                              int apiId,
+                              String apiHash,
+                              String phone,
+                              String systemLanguageCode,
+                              String deviceModel,
+                              String systemVersion,
+                              String applicationVersion,
+                              int logVerbosityLevel,
+                              Proxy proxy) {
+        this(useTestDc, databaseDirectory, filesDirectory, databaseEncryptionKey, useFileDatabase,
+                useChatInfoDatabase, useMessageDatabase, useSecretChats, apiId, apiHash, phone, systemLanguageCode,
+                deviceModel, systemVersion, applicationVersion, logVerbosityLevel, proxy,
+                null, null, null, null, null, null, null, null, null);
+    }
+
     public record Proxy(
             String server,
             int port,
@@ -42,4 +85,104 @@ public record TelegramProperties(
         public record ProxyMtProto(String secret) {}
     }
 
+    public record Timeouts(
+            Duration defaultTimeout,
+            Map<String, Duration> functions
+    ) {}
+
+    public record Dispatch(
+            Mode mode,
+            int threads,
+            int lanes,
+            Backpressure backpressure
+    ) {
+        public enum Mode {
+            /**
+             * Listeners are invoked on the TDLib thread
+             */
+            CALLER,
+            /**
+             * Listeners are invoked on a fixed pool of platform threads
+             */
+            PLATFORM,
+            /**
+             * Listeners are invoked on virtual threads, requires Java 21 or later
+             */
+            VIRTUAL
+        }
+
+        public record Backpressure(
+                int queueCapacity,
+                Overflow overflow,
+                Map<String, Overflow> updates
+        ) {
+            public enum Overflow {
+                /**
+                 * The TDLib thread waits until the listener catches up, but no longer than a second,
+                 * then the incoming update is dropped
+                 */
+                BLOCK,
+                /**
+                 * The oldest queued update is dropped, the default policy
+                 */
+                DROP_OLDEST,
+                /**
+                 * The incoming update is dropped
+                 */
+                DROP_NEWEST,
+                /**
+                 * The incoming update replaces the queued update of the same type and chat (user, group, file),
+                 * or is dropped if there is no such update
+                 */
+                CONFLATE
+            }
+        }
+    }
+
+    public record Simulator(
+            boolean enabled,
+            Duration latency,
+            Map<String, Duration> functions,
+            int updatesPerSecond,
+            int chats
+    ) {}
+
+    public record RateLimit(
+            boolean enabled,
+            double rate,
+            int burst,
+            Map<String, Double> functions,
+            int maxRetries
+    ) {}
+
+    public record Coalescing(
+            boolean enabled,
+            List<String> functions
+    ) {}
+
+    public record Cache(
+            boolean enabled,
+            int maxSize
+    ) {}
+
+    public record Conflation(
+            boolean enabled,
+            Duration interval,
+            List<String> updates
+    ) {}
+
+    public record Shutdown(
+            Duration drainTimeout,
+            Duration closeTimeout
+    ) {}
+
+    public record Lanes(
+            boolean enabled,
+            int maxInFlight,
+            Map<String, Limit> limits,
+            Map<String, String> functions
+    ) {
+        public record Limit(int maxInFlight, int queueCapacity) {}
+    }
+
 }
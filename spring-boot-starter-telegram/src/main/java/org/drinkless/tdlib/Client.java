@@ -1,10 +1,8 @@
 package org.drinkless.tdlib;
 
-import dev.voroby.springframework.telegram.client.TelegramClient;
 import dev.voroby.springframework.telegram.exception.TelegramClientConfigurationException;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -12,6 +10,11 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public final class Client {
 
+    /**
+     * Max number of queries waiting for the result from TDLib.
+     */
+    public static final int MAX_PENDING_QUERIES = 1 << 16;
+
     /**
      * Interface for handler for results of queries to TDLib and incoming updates from TDLib.
      */
@@ -24,6 +27,16 @@ public final class Client {
         void onResult(TdApi.Object object);
     }
 
+    /**
+     * Update handler which is also notified when all events received from TDLib in one receive cycle are handled.
+     */
+    public interface ReceiveCycleHandler extends ResultHandler {
+        /**
+         * Callback called on the TDLib thread after the events of a receive cycle are passed to onResult.
+         */
+        void onReceiveCycleEnd();
+    }
+
     /**
      * Interface for handler of exceptions thrown while invoking ResultHandler.
      * By default, all such exceptions are ignored.
@@ -81,13 +94,48 @@ public final class Client {
      * @param exceptionHandler Exception handler with onException method which will be called on
      *                         exception thrown from resultHandler. If it is null, then
      *                         defaultExceptionHandler will be called.
+     * @return identifier of the query, which can be used to {@link #cancel(long)} waiting for the result.
+     *         If {@link #MAX_PENDING_QUERIES} queries are already waiting for the result, the query is not sent
+     *         and resultHandler is called with TdApi.Error with code 429.
+     */
+    public long send(TdApi.Function query, ResultHandler resultHandler, ExceptionHandler exceptionHandler) {
+        return send(query, nextQueryId(), resultHandler, exceptionHandler);
+    }
+
+    /**
+     * Sends a request to the TDLib with the identifier reserved by {@link #nextQueryId()}, so the caller may
+     * {@link #cancel(long)} the query before this method returns. The identifier must not be used by another query
+     * waiting for the result.
+     *
+     * @param query         Object representing a query to the TDLib.
+     * @param queryId       Identifier of the query reserved by {@link #nextQueryId()}.
+     * @param resultHandler Result handler with onResult method which will be called with result
+     *                      of the query or with TdApi.Error as parameter.
+     * @return identifier of the query.
      */
-    public void send(TdApi.Function query, ResultHandler resultHandler, ExceptionHandler exceptionHandler) {
-        long queryId = currentQueryId.incrementAndGet();
+    public long send(TdApi.Function query, long queryId, ResultHandler resultHandler) {
+        return send(query, queryId, resultHandler, null);
+    }
+
+    private long send(TdApi.Function query, long queryId, ResultHandler resultHandler, ExceptionHandler exceptionHandler) {
         if (resultHandler != null) {
-            handlers.put(queryId, new Handler(resultHandler, exceptionHandler));
+            Object handler = exceptionHandler == null ? resultHandler : new Handler(resultHandler, exceptionHandler);
+            if (!handlers.put(queryId, handler)) {
+                resultHandler.onResult(new TdApi.Error(429, "Too many pending queries: " + handlers.capacity()));
+                return queryId;
+            }
         }
-        nativeClientSend(nativeClientId, queryId, query);
+        transport.send(nativeClientId, queryId, query);
+        return queryId;
+    }
+
+    /**
+     * Reserves an identifier of a query.
+     *
+     * @return identifier of a query, unique in the JVM process.
+     */
+    public static long nextQueryId() {
+        return currentQueryId.incrementAndGet();
     }
 
     /**
@@ -97,9 +145,28 @@ public final class Client {
      * @param resultHandler Result handler with onResult method which will be called with result
      *                      of the query or with TdApi.Error as parameter. If it is null, then
      *                      defaultExceptionHandler will be called.
+     * @return identifier of the query, which can be used to {@link #cancel(long)} waiting for the result.
+     */
+    public long send(TdApi.Function query, ResultHandler resultHandler) {
+        return send(query, resultHandler, null);
+    }
+
+    /**
+     * Stops waiting for the result of the query. The result handler of the query will not be called,
+     * a late response from TDLib is ignored.
+     *
+     * @param queryId Identifier of the query returned by send.
+     * @return true if the query was still waiting for the result.
+     */
+    public boolean cancel(long queryId) {
+        return handlers.remove(queryId) != null;
+    }
+
+    /**
+     * @return number of queries waiting for the result from TDLib.
      */
-    public void send(TdApi.Function query, ResultHandler resultHandler) {
-        send(query, resultHandler, null);
+    public static int pendingQueryCount() {
+        return handlers.size();
     }
 
     /**
@@ -112,7 +179,7 @@ public final class Client {
      */
     @SuppressWarnings("unchecked")
     public static <T extends TdApi.Object> T execute(TdApi.Function<T> query) throws ExecutionException {
-        TdApi.Object object = nativeClientExecute(query);
+        TdApi.Object object = transport.execute(query);
         if (object instanceof TdApi.Error) {
             throw new ExecutionException((TdApi.Error) object);
         }
@@ -120,30 +187,41 @@ public final class Client {
     }
 
     /**
-     * Creates new Client.
+     * Creates new Client. Any number of clients can be created, e.g. for several Telegram accounts,
+     * results and updates of all clients are received by one TDLib thread.
      *
      * @param updateHandler           Handler for incoming updates.
      * @param updateExceptionHandler  Handler for exceptions thrown from updateHandler. If it is null, exceptions will be ignored.
      * @param defaultExceptionHandler Default handler for exceptions thrown from all ResultHandler. If it is null, exceptions will be ignored.
      * @return created Client
-     * @throws TelegramClientConfigurationException if a Client instance has already been created for this JVM process.
-     *                                              If you want to create the instance again, you should close the running instance and get AuthorizationStateClosed.
-     *                                              After this, a new instance of the {@link TelegramClient} bean must be registered in context.
      */
     public synchronized static Client create(ResultHandler updateHandler, ExceptionHandler updateExceptionHandler, ExceptionHandler defaultExceptionHandler) {
-        if (!clientStarted.get()) {
-            Client client = new Client(updateHandler, updateExceptionHandler, defaultExceptionHandler);
-            if (!responseReceiver.isRun) {
-                responseReceiver.isRun = true;
-                Thread receiverThread = new Thread(responseReceiver, "TDLib thread");
-                receiverThread.setDaemon(true);
-                receiverThread.start();
-            }
-            clientStarted.set(true);
+        Client client = new Client(updateHandler, updateExceptionHandler, defaultExceptionHandler);
+        if (!responseReceiver.isRun) {
+            responseReceiver.isRun = true;
+            Thread receiverThread = new Thread(responseReceiver, "TDLib thread");
+            receiverThread.setDaemon(true);
+            receiverThread.start();
+            Client.receiverThread = receiverThread;
+        }
+        return client;
+    }
+
+    /**
+     * Lock-free, so it may be polled often, e.g. by health checks.
+     *
+     * @return the thread receiving results and updates of all clients has been started and is running.
+     */
+    public static boolean isReceiverAlive() {
+        Thread thread = receiverThread;
+        return thread != null && thread.isAlive();
+    }
 
-            return client;
-        } else
-            throw new TelegramClientConfigurationException("Client instance is already running.");
+    /**
+     * @return number of created and not yet closed clients.
+     */
+    public static long clientCount() {
+        return clientCount.get();
     }
 
     /**
@@ -154,24 +232,44 @@ public final class Client {
      * @param logMessageHandler Handler for messages that are added to the internal TDLib log. Pass null to remove the handler.
      */
     public static void setLogMessageHandler(int maxVerbosityLevel, LogMessageHandler logMessageHandler) {
-        nativeClientSetLogMessageHandler(maxVerbosityLevel, logMessageHandler);
+        transport.setLogMessageHandler(maxVerbosityLevel, logMessageHandler);
     }
 
-    private static class ResponseReceiver implements Runnable {
+    static class ResponseReceiver implements Runnable {
         public boolean isRun = false;
 
         @Override
         public void run() {
             while (true) {
-                int resultN = nativeClientReceive(clientIds, eventIds, events, 100000.0 /*seconds*/);
+                int resultN = transport.receive(clientIds, eventIds, events, 100000.0 /*seconds*/);
                 for (int i = 0; i < resultN; i++) {
                     processResult(clientIds[i], eventIds[i], events[i]);
                     events[i] = null;
                 }
+                if (resultN > 0) {
+                    processReceiveCycleEnd();
+                }
             }
         }
 
-        private void processResult(int clientId, long id, TdApi.Object object) {
+        private void processReceiveCycleEnd() {
+            for (Handler handler : updateHandlers.values()) {
+                if (handler.resultHandler instanceof ReceiveCycleHandler receiveCycleHandler) {
+                    try {
+                        receiveCycleHandler.onReceiveCycleEnd();
+                    } catch (Throwable cause) {
+                        if (handler.exceptionHandler != null) {
+                            try {
+                                handler.exceptionHandler.onException(cause);
+                            } catch (Throwable ignored) {
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        void processResult(int clientId, long id, TdApi.Object object) {
             boolean isClosed = false;
             if (id == 0 && object instanceof TdApi.UpdateAuthorizationState) {
                 TdApi.AuthorizationState authorizationState = ((TdApi.UpdateAuthorizationState) object).authorizationState;
@@ -180,12 +278,19 @@ public final class Client {
                 }
             }
 
-            Handler handler = id == 0 ? updateHandlers.get(clientId) : handlers.remove(id);
+            Object handler = id == 0 ? updateHandlers.get(clientId) : handlers.remove(id);
             if (handler != null) {
+                ResultHandler resultHandler;
+                ExceptionHandler exceptionHandler = null;
+                if (handler instanceof Handler h) {
+                    resultHandler = h.resultHandler;
+                    exceptionHandler = h.exceptionHandler;
+                } else {
+                    resultHandler = (ResultHandler) handler;
+                }
                 try {
-                    handler.resultHandler.onResult(object);
+                    resultHandler.onResult(object);
                 } catch (Throwable cause) {
-                    ExceptionHandler exceptionHandler = handler.exceptionHandler;
                     if (exceptionHandler == null) {
                         exceptionHandler = defaultExceptionHandlers.get(clientId);
                     }
@@ -202,7 +307,6 @@ public final class Client {
                 updateHandlers.remove(clientId);           // there will be no more updates
                 defaultExceptionHandlers.remove(clientId); // ignore further exceptions
                 clientCount.decrementAndGet();
-                clientStarted.set(false);
             }
         }
 
@@ -216,18 +320,21 @@ public final class Client {
 
     private static final ConcurrentHashMap<Integer, ExceptionHandler> defaultExceptionHandlers = new ConcurrentHashMap<Integer, ExceptionHandler>();
     private static final ConcurrentHashMap<Integer, Handler> updateHandlers = new ConcurrentHashMap<Integer, Handler>();
-    private static final ConcurrentHashMap<Long, Handler> handlers = new ConcurrentHashMap<Long, Handler>();
+    /*
+     * Pending queries hold either a ResultHandler or a Handler if the query has its own ExceptionHandler
+     */
+    private static final PendingQueries handlers = new PendingQueries(MAX_PENDING_QUERIES);
     private static final AtomicLong currentQueryId = new AtomicLong();
     private static final AtomicLong clientCount = new AtomicLong();
-    private static final AtomicBoolean clientStarted = new AtomicBoolean();
 
     private static final ResponseReceiver responseReceiver = new ResponseReceiver();
+    private static volatile Thread receiverThread;
 
     private record Handler(ResultHandler resultHandler, ExceptionHandler exceptionHandler) {}
 
     private Client(ResultHandler updateHandler, ExceptionHandler updateExceptionHandler, ExceptionHandler defaultExceptionHandler) {
         clientCount.incrementAndGet();
-        nativeClientId = createNativeClient();
+        nativeClientId = transport.createClient();
         if (updateHandler != null) {
             updateHandlers.put(nativeClientId, new Handler(updateHandler, updateExceptionHandler));
         }
@@ -237,6 +344,109 @@ public final class Client {
         send(new TdApi.GetOption("version"), null, null);
     }
 
+    /**
+     * Transport of queries and events between Client and TDLib.
+     * By default, the native TDLib interface is used. Another transport, e.g. a simulator of TDLib for tests and
+     * load experiments, can be set with {@link #setTransport(Transport)} before the first Client is created.
+     */
+    public interface Transport {
+        /**
+         * Creates new TDLib client instance.
+         *
+         * @return identifier of the client
+         */
+        int createClient();
+
+        /**
+         * Sends a query to the TDLib client. The result must be returned by {@link #receive} with the same eventId.
+         *
+         * @param nativeClientId identifier of the client
+         * @param eventId        identifier of the query
+         * @param function       query to the TDLib
+         */
+        void send(int nativeClientId, long eventId, TdApi.Function function);
+
+        /**
+         * Receives results of queries and incoming updates of all clients. Called only from the TDLib thread.
+         *
+         * @param clientIds identifiers of clients of received events
+         * @param eventIds  identifiers of queries of received events, 0 for updates
+         * @param events    received events
+         * @param timeout   max time to wait for events in seconds
+         * @return number of received events
+         */
+        int receive(int[] clientIds, long[] eventIds, TdApi.Object[] events, double timeout);
+
+        /**
+         * Synchronously executes a TDLib request.
+         *
+         * @param function query to the TDLib
+         * @return result of the query or TdApi.Error
+         */
+        TdApi.Object execute(TdApi.Function function);
+
+        /**
+         * Sets the handler for messages that are added to the internal TDLib log.
+         *
+         * @param maxVerbosityLevel The maximum verbosity level of messages for which the callback will be called.
+         * @param logMessageHandler Handler for messages that are added to the internal TDLib log.
+         */
+        void setLogMessageHandler(int maxVerbosityLevel, LogMessageHandler logMessageHandler);
+    }
+
+    /**
+     * Sets the transport of all clients of the JVM process.
+     *
+     * @param transport transport between clients and TDLib
+     * @throws TelegramClientConfigurationException if a Client has already been created with another transport.
+     */
+    public synchronized static void setTransport(Transport transport) {
+        if (transport == null) {
+            throw new TelegramClientConfigurationException("Transport must not be null.");
+        }
+        if (responseReceiver.isRun && transport != Client.transport) {
+            throw new TelegramClientConfigurationException("Transport can't be changed after a Client instance is created.");
+        }
+        Client.transport = transport;
+    }
+
+    /**
+     * @return transport of all clients of the JVM process.
+     */
+    public static Transport transport() {
+        return transport;
+    }
+
+    private static final class JniTransport implements Transport {
+
+        @Override
+        public int createClient() {
+            return createNativeClient();
+        }
+
+        @Override
+        public void send(int nativeClientId, long eventId, TdApi.Function function) {
+            nativeClientSend(nativeClientId, eventId, function);
+        }
+
+        @Override
+        public int receive(int[] clientIds, long[] eventIds, TdApi.Object[] events, double timeout) {
+            return nativeClientReceive(clientIds, eventIds, events, timeout);
+        }
+
+        @Override
+        public TdApi.Object execute(TdApi.Function function) {
+            return nativeClientExecute(function);
+        }
+
+        @Override
+        public void setLogMessageHandler(int maxVerbosityLevel, LogMessageHandler logMessageHandler) {
+            nativeClientSetLogMessageHandler(maxVerbosityLevel, logMessageHandler);
+        }
+    }
+
+    private static volatile Transport transport = new JniTransport();
+
     private static native int createNativeClient();
 
     private static native void nativeClientSend(int nativeClientId, long eventId, TdApi.Function function);
@@ -0,0 +1,169 @@
+package org.drinkless.tdlib;
+
+/**
+ * Table of queries waiting for a result from TDLib, keyed by the primitive query identifier.
+ * The table is split into stripes guarded by their own monitors, each stripe is an open-addressing hash table
+ * with linear probing and backward shift deletion, so insert and remove are O(1) and don't allocate
+ * while the stripe doesn't grow. The number of pending queries is bounded by the capacity.
+ */
+final class PendingQueries {
+
+    private static final int STRIPES = 16;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final int capacity;
+
+    /**
+     * @param capacity max number of pending queries, rounded up to a multiple of the stripes number
+     */
+    PendingQueries(int capacity) {
+        int stripeLimit = Math.max((capacity + STRIPES - 1) / STRIPES, 1);
+        this.capacity = stripeLimit * STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeLimit);
+        }
+    }
+
+    /**
+     * @param queryId identifier of the query, must be positive
+     * @param handler handler of the query result
+     * @return false if the capacity is exhausted and the handler was not added
+     */
+    boolean put(long queryId, Object handler) {
+        return stripe(queryId).put(queryId, handler);
+    }
+
+    /**
+     * @param queryId identifier of the query
+     * @return removed handler of the query or null if there is no such query
+     */
+    Object remove(long queryId) {
+        return stripe(queryId).remove(queryId);
+    }
+
+    /**
+     * Lock-free, but not an atomic snapshot when queries are added or removed concurrently.
+     *
+     * @return number of pending queries
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return max number of pending queries
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    private Stripe stripe(long queryId) {
+        return stripes[(int) queryId & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+
+        private final int limit;
+
+        private long[] keys;
+
+        private Object[] values;
+
+        private volatile int size;
+
+        Stripe(int limit) {
+            this.limit = limit;
+            int initialCapacity = Math.min(INITIAL_STRIPE_CAPACITY, Integer.highestOneBit(limit) << 1);
+            this.keys = new long[initialCapacity];
+            this.values = new Object[initialCapacity];
+        }
+
+        synchronized boolean put(long key, Object value) {
+            if (size >= limit) {
+                return false;
+            }
+            if ((size + 1) << 1 > keys.length) {
+                resize();
+            }
+            insert(keys, values, key, value);
+            size = size + 1;
+            return true;
+        }
+
+        synchronized Object remove(long key) {
+            long[] keys = this.keys;
+            Object[] values = this.values;
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            long k;
+            while ((k = keys[i]) != 0) {
+                if (k == key) {
+                    Object value = values[i];
+                    shiftBack(keys, values, i, mask);
+                    size = size - 1;
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /*
+         * Moves entries of the probe chain into the freed slot, so lookups never need tombstones.
+         */
+        private static void shiftBack(long[] keys, Object[] values, int free, int mask) {
+            int i = free;
+            while (true) {
+                i = (i + 1) & mask;
+                long k = keys[i];
+                if (k == 0) {
+                    break;
+                }
+                int home = index(k, mask);
+                if (((i - home) & mask) >= ((i - free) & mask)) {
+                    keys[free] = k;
+                    values[free] = values[i];
+                    free = i;
+                }
+            }
+            keys[free] = 0;
+            values[free] = null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length << 1];
+            Object[] newValues = new Object[oldKeys.length << 1];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    insert(newKeys, newValues, oldKeys[i], oldValues[i]);
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        private static void insert(long[] keys, Object[] values, long key, Object value) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private static int index(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package dev.voroby.springframework.telegram;
+
+import org.drinkless.tdlib.Client;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelegramClientRuntimeHintsTest {
+
+    @Test
+    void tdApiIsReachableFromNativeCode() {
+        var hints = new RuntimeHints();
+        new TelegramClientRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertNotNull(hints.jni().getTypeHint(Client.class));
+        assertTrue(hints.jni().getTypeHint(TdApi.UpdateNewChat.class).getMemberCategories()
+                .contains(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        assertTrue(hints.jni().getTypeHint(TdApi.Chat.class).getMemberCategories()
+                .contains(MemberCategory.ACCESS_PUBLIC_FIELDS));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TdApi.GetChat.class).test(hints));
+        assertFalse(RuntimeHintsPredicates.reflection().onType(TdApi.Chat.class).test(hints));
+    }
+
+}
@@ -0,0 +1,50 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Blocking {@link TelegramClient#send} path against a stub result handler answering from a separate "TDLib thread".
+ * Latency is measured by {@code SendLatencyBenchmark} of the benchmarks module.
+ */
+class AwaitResultTest {
+
+    private final ScheduledExecutorService tdlibThread = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        tdlibThread.shutdownNow();
+    }
+
+    @Test
+    void awaitResultReturnsResult() {
+        var result = new CompletableFuture<TdApi.Object>();
+        tdlibThread.schedule(() -> result.complete(new TdApi.Ok()), 200, TimeUnit.MICROSECONDS);
+        assertInstanceOf(TdApi.Ok.class, TelegramClient.awaitResult(result));
+    }
+
+    @Test
+    void awaitResultRethrowsFailure() {
+        var result = new CompletableFuture<TdApi.Object>();
+        tdlibThread.execute(() -> result.completeExceptionally(new IllegalStateException("failure")));
+        var exception = assertThrows(TelegramClientTdApiException.class, () -> TelegramClient.awaitResult(result));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void interruptedCallerKeepsInterruptStatus() {
+        Thread.currentThread().interrupt();
+        assertThrows(RuntimeException.class, () -> TelegramClient.awaitResult(new CompletableFuture<>()));
+        assertTrue(Thread.interrupted());
+    }
+
+}
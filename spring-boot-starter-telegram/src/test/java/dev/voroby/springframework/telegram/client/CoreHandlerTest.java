@@ -1,13 +1,20 @@
 package dev.voroby.springframework.telegram.client;
 
 import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import dev.voroby.springframework.telegram.client.updates.UpdateSubscription;
+import dev.voroby.springframework.telegram.exception.TelegramClientTdApiException;
 import org.drinkless.tdlib.TdApi;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CoreHandlerTest {
 
@@ -34,4 +41,75 @@ class CoreHandlerTest {
         assertEquals(expectedConstructorIdentifier, actualConstructorIdentifier.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    void connectionStateAndLastUpdateTracked() {
+        var coreHandler = new CoreUpdateHandler(List.of(), obj -> {});
+        coreHandler.onReceiveCycleEnd();
+        assertEquals(0, coreHandler.lastUpdateNanos());
+
+        var ready = new TdApi.ConnectionStateReady();
+        coreHandler.onResult(new TdApi.UpdateConnectionState(ready));
+        coreHandler.onReceiveCycleEnd();
+
+        assertSame(ready, coreHandler.connectionState());
+        assertNotEquals(0, coreHandler.lastUpdateNanos());
+    }
+
+    @Test
+    void allListenersOfTypeInOrder() {
+        var calls = new ArrayList<String>();
+        var defaultCalls = new ArrayList<TdApi.Object>();
+        var coreHandler = new CoreUpdateHandler(List.of(
+                chatTitleListener(update -> calls.add("first")),
+                chatTitleListener(update -> {
+                    throw new IllegalStateException("listener failure");
+                }),
+                chatTitleListener(update -> calls.add("third"))
+        ), defaultCalls::add);
+
+        coreHandler.onResult(new TdApi.UpdateChatTitle(1, "title"));
+        coreHandler.onResult(new TdApi.UpdateNewChat());
+
+        assertEquals(List.of("first", "third"), calls);
+        assertEquals(1, defaultCalls.size());
+    }
+
+    @Test
+    void subscribersAreAddedAndRemovedAtRuntime() {
+        var titles = new ArrayList<String>();
+        var defaultCalls = new ArrayList<TdApi.Object>();
+        var coreHandler = new CoreUpdateHandler(List.of(), defaultCalls::add);
+
+        UpdateSubscription subscription = coreHandler.subscribe(TdApi.UpdateChatTitle.class,
+                update -> titles.add(update.title));
+        coreHandler.onResult(new TdApi.UpdateChatTitle(1, "first"));
+        subscription.close();
+        subscription.close();
+        coreHandler.onResult(new TdApi.UpdateChatTitle(1, "second"));
+
+        assertEquals(List.of("first"), titles);
+        assertEquals(1, defaultCalls.size());
+    }
+
+    @Test
+    void updateTypesAreResolvedByIndex() {
+        var coreHandler = new CoreUpdateHandler(List.of(), obj -> {});
+
+        assertThrows(TelegramClientTdApiException.class, () -> coreHandler.subscribe(TdApi.Update.class, update -> {}));
+    }
+
+    private UpdateNotificationListener<TdApi.UpdateChatTitle> chatTitleListener(Consumer<TdApi.UpdateChatTitle> consumer) {
+        return new UpdateNotificationListener<>() {
+            @Override
+            public void handleNotification(TdApi.UpdateChatTitle notification) {
+                consumer.accept(notification);
+            }
+
+            @Override
+            public Class<TdApi.UpdateChatTitle> notificationType() {
+                return TdApi.UpdateChatTitle.class;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,46 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCoalescerTest {
+
+    @Test
+    void disabledByDefault() {
+        assertNull(QueryCoalescer.create(null));
+        assertNull(QueryCoalescer.create(new TelegramProperties.Coalescing(false, List.of("GetChat"))));
+    }
+
+    @Test
+    void identicalQueriesHaveEqualKeys() {
+        QueryCoalescer<Object> coalescer = QueryCoalescer.create(new TelegramProperties.Coalescing(true, null));
+
+        assertEquals(coalescer.keyOf(new TdApi.GetChat(1)), coalescer.keyOf(new TdApi.GetChat(1)));
+        assertNotEquals(coalescer.keyOf(new TdApi.GetChat(1)), coalescer.keyOf(new TdApi.GetChat(2)));
+        assertNotEquals(coalescer.keyOf(new TdApi.GetChat(1)), coalescer.keyOf(new TdApi.GetFile(1)));
+        assertNull(coalescer.keyOf(new TdApi.GetChatHistory(1, 0, 0, 100, false)));
+    }
+
+    @Test
+    void inFlightQueryIsRemovedOnlyByItself() {
+        QueryCoalescer<Object> coalescer = QueryCoalescer.create(new TelegramProperties.Coalescing(true,
+                List.of("GetChatHistory")));
+        QueryCoalescer.Key key = coalescer.keyOf(new TdApi.GetChatHistory(1, 0, 0, 100, false));
+        var first = new Object();
+
+        assertNull(coalescer.keyOf(new TdApi.GetChat(1)));
+        assertNull(coalescer.putIfAbsent(key, first));
+        assertSame(first, coalescer.putIfAbsent(coalescer.keyOf(new TdApi.GetChatHistory(1, 0, 0, 100, false)),
+                new Object()));
+        coalescer.remove(key, new Object());
+        assertSame(first, coalescer.get(key));
+        coalescer.remove(key, first);
+        assertEquals(0, coalescer.size());
+    }
+
+}
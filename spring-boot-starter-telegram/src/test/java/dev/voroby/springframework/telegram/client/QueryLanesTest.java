@@ -0,0 +1,107 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.exception.TelegramClientConfigurationException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryLanesTest {
+
+    private final List<String> sent = new ArrayList<>();
+
+    @Test
+    void disabledByDefault() {
+        assertNull(QueryLanes.create(null));
+        assertNull(QueryLanes.create(new TelegramProperties.Lanes(false, 0, null, null)));
+    }
+
+    @Test
+    void interactiveQueriesOvertakeQueuedBulkWork() {
+        var lanes = QueryLanes.create(new TelegramProperties.Lanes(true, 2,
+                Map.of("bulk", new TelegramProperties.Lanes.Limit(1, 0)), null));
+        QueryLanes.Lane bulk = QueryLanes.callIn(QueryLane.BULK, () -> lanes.laneOf(new TdApi.GetChatHistory()));
+        QueryLanes.Lane interactive = QueryLanes.callIn(QueryLane.INTERACTIVE, () -> lanes.laneOf(new TdApi.GetFile()));
+
+        lanes.submit(bulk, new TestQuery("bulk-1"));
+        lanes.submit(bulk, new TestQuery("bulk-2"));
+        lanes.submit(interactive, new TestQuery("stream-1"));
+        lanes.submit(interactive, new TestQuery("stream-2"));
+        assertEquals(List.of("bulk-1", "stream-1"), sent);
+
+        lanes.release(bulk);
+        assertEquals(List.of("bulk-1", "stream-1", "stream-2"), sent);
+        lanes.release(interactive);
+        assertEquals(List.of("bulk-1", "stream-1", "stream-2", "bulk-2"), sent);
+    }
+
+    @Test
+    void fullQueueRejectsQueries() {
+        var lanes = QueryLanes.create(new TelegramProperties.Lanes(true, 0,
+                Map.of("BULK", new TelegramProperties.Lanes.Limit(1, 1)), Map.of("GetChatHistory", "bulk")));
+        QueryLanes.Lane bulk = lanes.laneOf(new TdApi.GetChatHistory());
+        var rejected = new TestQuery("bulk-3");
+
+        lanes.submit(bulk, new TestQuery("bulk-1"));
+        var expired = new TestQuery("bulk-2");
+        lanes.submit(bulk, expired);
+        lanes.submit(bulk, rejected);
+        assertEquals(List.of("bulk-1"), sent);
+        assertNotNull(rejected.rejection);
+
+        expired.expired = true;
+        lanes.release(bulk);
+        assertEquals(List.of("bulk-1"), sent);
+        assertEquals(new QueryLaneStatus("bulk", 1, 0, 0, 1, 1), lanes.statuses().get(2));
+        assertEquals(List.of("interactive", "default", "bulk"),
+                lanes.statuses().stream().map(QueryLaneStatus::lane).toList());
+    }
+
+    @Test
+    void laneOfFunctionTypeOrCallingThread() {
+        var lanes = QueryLanes.create(new TelegramProperties.Lanes(true, 0, null,
+                Map.of("GetChatHistory", "bulk", "DownloadFile", "interactive")));
+
+        assertEquals("bulk", lanes.laneOf(new TdApi.GetChatHistory()).name());
+        assertEquals("interactive", lanes.laneOf(new TdApi.DownloadFile()).name());
+        assertEquals("default", lanes.laneOf(new TdApi.GetChat()).name());
+        assertEquals("bulk", QueryLanes.callIn(QueryLane.BULK, () -> lanes.laneOf(new TdApi.DownloadFile()).name()));
+        assertEquals("default", lanes.laneOf(new TdApi.GetChat()).name());
+        assertThrows(TelegramClientConfigurationException.class, () -> QueryLanes.create(
+                new TelegramProperties.Lanes(true, 0, null, Map.of("GetChat", "urgent"))));
+    }
+
+    private final class TestQuery implements QueryLanes.Query {
+
+        private final String name;
+
+        private boolean expired;
+
+        private String rejection;
+
+        TestQuery(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return expired;
+        }
+
+        @Override
+        public void admit(QueryLanes.Lane lane) {
+            sent.add(name);
+        }
+
+        @Override
+        public void reject(String reason) {
+            rejection = reason;
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final TdApi.GetChatHistory history = new TdApi.GetChatHistory(1, 0, 0, 100, false);
+
+    @Test
+    void disabledByDefault() {
+        assertNull(RateLimiter.create(null));
+        assertNull(RateLimiter.create(new TelegramProperties.RateLimit(false, 10, 1, Map.of(), 0)));
+    }
+
+    @Test
+    void burstThenConfiguredRate() {
+        var rateLimiter = RateLimiter.create(new TelegramProperties.RateLimit(true, 30, 5,
+                Map.of("GetChatHistory", 10.0), 0));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.reserve(history));
+        }
+        long delay = rateLimiter.reserve(history);
+        assertTrue(delay > TimeUnit.MILLISECONDS.toNanos(50) && delay <= TimeUnit.MILLISECONDS.toNanos(100), "delay " + delay);
+        assertEquals(30, rateLimiter.rateOf(TdApi.GetChat.class));
+    }
+
+    @Test
+    void floodWaitPausesAndHalvesTheRate() {
+        var rateLimiter = RateLimiter.create(new TelegramProperties.RateLimit(true, 8, 1, Map.of(), 2));
+        var floodWait = new TdApi.Error(429, "Too Many Requests: retry after 3");
+
+        rateLimiter.onFloodWait(history, RateLimiter.retryAfterNanos(floodWait));
+        rateLimiter.onFloodWait(history, RateLimiter.retryAfterNanos(floodWait));
+
+        assertEquals(4, rateLimiter.rateOf(TdApi.GetChatHistory.class));
+        assertTrue(rateLimiter.reserve(history) > TimeUnit.SECONDS.toNanos(2));
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.onSuccess(history);
+        }
+        double rate = rateLimiter.rateOf(TdApi.GetChatHistory.class);
+        assertTrue(rate > 4.5 && rate < 5, "rate " + rate);
+        assertEquals(2, rateLimiter.maxRetries());
+    }
+
+    @Test
+    void retryAfter() {
+        assertEquals(TimeUnit.SECONDS.toNanos(10),
+                RateLimiter.retryAfterNanos(new TdApi.Error(429, "Too Many Requests: retry after 10")));
+        assertEquals(TimeUnit.SECONDS.toNanos(7), RateLimiter.retryAfterNanos(new TdApi.Error(420, "FLOOD_WAIT_7")));
+        assertEquals(-1, RateLimiter.retryAfterNanos(new TdApi.Error(429, "Too many pending queries: 65536")));
+        assertEquals(-1, RateLimiter.retryAfterNanos(new TdApi.Error(400, "retry after 10")));
+    }
+
+}
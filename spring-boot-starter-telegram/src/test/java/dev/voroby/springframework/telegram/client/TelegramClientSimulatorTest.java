@@ -0,0 +1,286 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.simulator.TdlibSimulator;
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationState;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationStateImpl;
+import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import dev.voroby.springframework.telegram.exception.TelegramClientTimeoutException;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.Client;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramClientSimulatorTest {
+
+    /*
+     * The transport is set once per JVM, so all tests use the same simulator settings
+     */
+    private static final TelegramProperties.Simulator SIMULATOR = new TelegramProperties.Simulator(true,
+            Duration.ofMillis(5), Map.of("GetChatHistory", Duration.ofMillis(50)), 1000, 10);
+
+    @Test
+    void queriesAndUpdatesOfSimulator() throws Exception {
+        var newMessages = new AtomicInteger();
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(),
+                List.of(listener(TdApi.UpdateNewMessage.class, update -> newMessages.incrementAndGet())),
+                object -> {}, state);
+
+        assertTrue(Client.transport() instanceof TdlibSimulator);
+        awaitAuthorization(List.of(state));
+
+        TdApi.Chat chat = client.send(new TdApi.GetChat(7)).getObject().orElseThrow();
+        assertEquals(7, chat.id);
+
+        long startedAt = System.nanoTime();
+        TdApi.Messages messages = client.sendAsync(new TdApi.GetChatHistory(7, 0, 0, 20, false))
+                .get(5, TimeUnit.SECONDS).getObject().orElseThrow();
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(20, messages.messages.length);
+        assertEquals(7, messages.messages[0].chatId);
+
+        TdApi.File file = client.send(new TdApi.GetFile(3)).getObject().orElseThrow();
+        assertEquals(3, file.id);
+        assertEquals(400, client.send(new TdApi.GetMe()).getError().orElseThrow().code);
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertTrue(newMessages.get() > 50, "updates received: " + newMessages.get());
+
+        client.cleanUp();
+        assertTrue(state.isStateClosed());
+    }
+
+    @Test
+    void expiredQueryLeavesNoHandlerAndCallsBackOffTheWheel() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(), List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var callbackThread = new CompletableFuture<String>();
+        client.sendWithCallback(new TdApi.GetChatHistory(7, 0, 0, 20, false),
+                (messages, error) -> callbackThread.complete(Thread.currentThread().getName()), Duration.ofMillis(10));
+
+        assertEquals("TDLib timeout callback", callbackThread.get(5, TimeUnit.SECONDS));
+        assertEquals(0, Client.pendingQueryCount());
+
+        client.cleanUp();
+    }
+
+    @Test
+    void severalAccountsShareTheReceiveLoop() throws Exception {
+        var accounts = new ArrayList<TelegramClient>();
+        var states = new ArrayList<ClientAuthorizationState>();
+        var newChats = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            var state = new ClientAuthorizationStateImpl();
+            states.add(state);
+            accounts.add(TelegramClient.create(properties(),
+                    List.of(listener(TdApi.UpdateNewChat.class, update -> newChats.incrementAndGet())),
+                    object -> {}, state));
+        }
+
+        awaitAuthorization(states);
+        for (int i = 0; i < accounts.size(); i++) {
+            assertEquals(i, accounts.get(i).send(new TdApi.GetChat(i)).getObject().orElseThrow().id);
+        }
+        var history = accounts.get(0).sendAsync(new TdApi.GetChatHistory(1, 0, 0, 5, false));
+        assertEquals(1, accounts.get(0).getStatus().pendingQueries());
+        assertEquals(0, accounts.get(1).getStatus().pendingQueries());
+        history.get(5, TimeUnit.SECONDS);
+
+        for (TelegramClient account : accounts) {
+            account.close();
+        }
+        assertTrue(states.stream().allMatch(ClientAuthorizationState::isStateClosed));
+        assertEquals(0, newChats.get());
+    }
+
+    @Test
+    void identicalQueriesShareTheResult() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(new TelegramProperties.Coalescing(true, null), null, null),
+                List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var futures = new ArrayList<CompletableFuture<Response<TdApi.Chat>>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(client.sendAsync(new TdApi.GetChat(5)));
+        }
+        TdApi.Chat other = client.send(new TdApi.GetChat(6)).getObject().orElseThrow();
+        TdApi.Chat chat = futures.get(0).get(5, TimeUnit.SECONDS).getObject().orElseThrow();
+        for (CompletableFuture<Response<TdApi.Chat>> future : futures) {
+            assertSame(chat, future.get(5, TimeUnit.SECONDS).getObject().orElseThrow());
+        }
+        assertEquals(6, other.id);
+        assertNotSame(chat, client.send(new TdApi.GetChat(5)).getObject().orElseThrow());
+
+        client.cleanUp();
+    }
+
+    @Test
+    void sharedQueryWaitsForTheLatestDeadline() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(
+                properties(new TelegramProperties.Coalescing(true, List.of("GetChatHistory")), null, null),
+                List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        // answered after 50 ms
+        var query = new TdApi.GetChatHistory(7, 0, 0, 20, false);
+        var impatient = client.sendAsync(query, Duration.ofMillis(10));
+        var patient = client.sendAsync(query, Duration.ofSeconds(5));
+
+        var timeout = assertThrows(ExecutionException.class, () -> impatient.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramClientTimeoutException.class, timeout.getCause());
+        assertEquals(20, patient.get(5, TimeUnit.SECONDS).getObject().orElseThrow().messages.length);
+
+        // the shared query is abandoned once all of its queries expire
+        var expired = client.sendAsync(query, Duration.ofMillis(10));
+        assertThrows(ExecutionException.class, () -> expired.get(5, TimeUnit.SECONDS));
+        assertEquals(20, client.send(query).getObject().orElseThrow().messages.length);
+        assertEquals(0, client.getStatus().pendingQueries());
+
+        client.cleanUp();
+    }
+
+    @Test
+    void batchResponsesKeepTheOrderOfQueries() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(), List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var queries = new ArrayList<TdApi.Function<TdApi.Chat>>();
+        for (int i = 0; i < 100; i++) {
+            queries.add(new TdApi.GetChat(i));
+        }
+        List<Response<TdApi.Chat>> responses = client.sendAll(queries).get(5, TimeUnit.SECONDS);
+        assertEquals(100, responses.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, responses.get(i).getObject().orElseThrow().id);
+        }
+
+        var chatIds = new ArrayList<Long>();
+        client.sendAll(queries, 4, response -> chatIds.add(response.getObject().orElseThrow().id))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(LongStream.range(0, 100).boxed().toList(), chatIds);
+
+        var histories = client.sendAll(List.of(new TdApi.GetChatHistory(1, 0, 0, 5, false),
+                new TdApi.GetChatHistory(2, 0, 0, 5, false))).get(5, TimeUnit.SECONDS);
+        assertEquals(1, histories.get(0).getObject().orElseThrow().messages[0].chatId);
+        assertEquals(2, histories.get(1).getObject().orElseThrow().messages[0].chatId);
+        assertTrue(client.sendAll(List.<TdApi.GetMe>of()).get(5, TimeUnit.SECONDS).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> client.sendAll(queries, 0));
+
+        client.cleanUp();
+    }
+
+    @Test
+    void interactiveQueriesOvertakeBulkLane() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(null, null, new TelegramProperties.Lanes(true, 0,
+                        Map.of("bulk", new TelegramProperties.Lanes.Limit(1, 0)), null)),
+                List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var histories = new ArrayList<TdApi.GetChatHistory>();
+        for (int i = 0; i < 5; i++) {
+            histories.add(new TdApi.GetChatHistory(i, 0, 0, 5, false));
+        }
+        var bulk = client.inLane(QueryLane.BULK, () -> client.sendAll(histories));
+        assertEquals(1, client.getQueryLanes().get(2).inFlight());
+        assertEquals(4, client.getQueryLanes().get(2).queued());
+
+        assertEquals(7, client.inLane(QueryLane.INTERACTIVE, () -> client.send(new TdApi.GetChat(7)))
+                .getObject().orElseThrow().id);
+        assertFalse(bulk.isDone());
+        assertEquals(4, bulk.get(5, TimeUnit.SECONDS).get(4).getObject().orElseThrow().messages[0].chatId);
+        assertEquals(new QueryLaneStatus("bulk", 1, 0, 0, 5, 0), client.getQueryLanes().get(2));
+        assertEquals(1, client.getQueryLanes().get(0).sent());
+
+        client.cleanUp();
+    }
+
+    @Test
+    void shutdownDrainsQueriesInFlight() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(properties(), List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var history = client.sendAsync(new TdApi.GetChatHistory(7, 0, 0, 20, false));
+        client.cleanUp();
+
+        assertTrue(history.isDone());
+        assertEquals(20, history.get().getObject().orElseThrow().messages.length);
+        assertTrue(state.isStateClosed());
+        assertEquals(500, client.send(new TdApi.GetChat(7)).getError().orElseThrow().code);
+    }
+
+    @Test
+    void shutdownAbortsQueriesAfterTheDrainTimeout() throws Exception {
+        var state = new ClientAuthorizationStateImpl();
+        var client = TelegramClient.create(
+                properties(null, new TelegramProperties.Shutdown(Duration.ofMillis(10), null), null),
+                List.of(), object -> {}, state);
+        awaitAuthorization(List.of(state));
+
+        var history = client.sendAsync(new TdApi.GetChatHistory(7, 0, 0, 20, false));
+        long startedAt = System.nanoTime();
+        client.cleanUp();
+
+        assertTrue(history.isDone());
+        assertEquals(500, history.get().getError().orElseThrow().code);
+        assertTrue(state.isStateClosed());
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void awaitAuthorization(List<ClientAuthorizationState> states) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!states.stream().allMatch(ClientAuthorizationState::haveAuthorization) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(states.stream().allMatch(ClientAuthorizationState::haveAuthorization));
+    }
+
+    private static <T extends TdApi.Update> UpdateNotificationListener<T> listener(Class<T> type,
+                                                                                 Consumer<T> consumer) {
+        return new UpdateNotificationListener<>() {
+            @Override
+            public void handleNotification(T notification) {
+                consumer.accept(notification);
+            }
+
+            @Override
+            public Class<T> notificationType() {
+                return type;
+            }
+        };
+    }
+
+    private static TelegramProperties properties() {
+        return properties(null, null, null);
+    }
+
+    private static TelegramProperties properties(TelegramProperties.Coalescing coalescing,
+                                                 TelegramProperties.Shutdown shutdown,
+                                                 TelegramProperties.Lanes lanes) {
+        return new TelegramProperties(false, "tdlib", "tdlib", "key",
+                false, false, false, false,
+                1, "hash", "+10000000000", "en", "simulator", "1.0", "1.0",
+                1, null, null, null, SIMULATOR, null, coalescing, null, null, shutdown, lanes);
+    }
+
+}
@@ -0,0 +1,122 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramObjectCacheTest {
+
+    private final TelegramObjectCache cache = TelegramObjectCache.create(new TelegramProperties.Cache(true, 2));
+
+    @Test
+    void disabledByDefault() {
+        assertNull(TelegramObjectCache.create(null));
+        assertNull(TelegramObjectCache.create(new TelegramProperties.Cache(false, 10)));
+    }
+
+    @Test
+    void updatesKeepChatsCoherent() {
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(1)));
+        cache.onUpdate(new TdApi.UpdateChatTitle(1, "renamed"));
+        cache.onUpdate(new TdApi.UpdateChatReadInbox(1, 42, 3));
+        cache.onUpdate(new TdApi.UpdateChatPosition(1, new TdApi.ChatPosition(new TdApi.ChatListMain(), 10, false)));
+        cache.onUpdate(new TdApi.UpdateChatPosition(1, new TdApi.ChatPosition(new TdApi.ChatListFolder(2), 5, false)));
+        cache.onUpdate(new TdApi.UpdateChatPosition(1, new TdApi.ChatPosition(new TdApi.ChatListMain(), 0, false)));
+        cache.onUpdate(new TdApi.UpdateChatTitle(7, "unknown"));
+
+        TdApi.Chat chat = cache.getChat(1).orElseThrow();
+        assertEquals("renamed", chat.title);
+        assertEquals(42, chat.lastReadInboxMessageId);
+        assertEquals(3, chat.unreadCount);
+        assertEquals(1, chat.positions.length);
+        assertInstanceOf(TdApi.ChatListFolder.class, chat.positions[0].list);
+        assertTrue(cache.getChat(7).isEmpty());
+    }
+
+    @Test
+    void objectsOfListenersAreNeverChanged() {
+        TdApi.Chat delivered = chat(1);
+        cache.onUpdate(new TdApi.UpdateNewChat(delivered));
+        TdApi.Chat snapshot = cache.getChat(1).orElseThrow();
+        cache.onUpdate(new TdApi.UpdateChatTitle(1, "renamed"));
+        cache.onUpdate(new TdApi.UpdateChatUnreadMentionCount(1, 4));
+
+        assertEquals("Chat 1", delivered.title);
+        assertEquals("Chat 1", snapshot.title);
+        assertNotSame(delivered, snapshot);
+        TdApi.Chat chat = cache.getChat(1).orElseThrow();
+        assertEquals("renamed", chat.title);
+        assertEquals(4, chat.unreadMentionCount);
+    }
+
+    @Test
+    void chatsChangedByUnappliedUpdatesAreEvicted() {
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(1)));
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(2)));
+        cache.onUpdate(new TdApi.UpdateChatAction(1, 0));
+        cache.onUpdate(new TdApi.UpdateChatOnlineMemberCount(1, 5));
+        assertTrue(cache.getChat(1).isPresent());
+
+        cache.onUpdate(new TdApi.UpdateChatHasProtectedContent(1, true));
+        assertTrue(cache.getChat(1).isEmpty());
+        assertTrue(cache.getChat(2).isPresent());
+
+        cache.onResult(chat(1));
+        cache.onResult(chat(3));
+        assertTrue(cache.getChat(1).isPresent());
+        assertTrue(cache.getChat(2).isEmpty());
+        assertEquals(2, cache.regions().get(0).size());
+    }
+
+    @Test
+    void updatesKeepUsersAndSupergroupsCoherent() {
+        var user = new TdApi.User();
+        user.id = 5;
+        cache.onUpdate(new TdApi.UpdateUser(user));
+        cache.onUpdate(new TdApi.UpdateUserStatus(5, new TdApi.UserStatusOnline(100)));
+        var supergroup = new TdApi.Supergroup(9, 10, true);
+        cache.onUpdate(new TdApi.UpdateSupergroup(supergroup));
+        cache.onUpdate(new TdApi.UpdateSupergroup(new TdApi.Supergroup(9, 11, true)));
+
+        assertInstanceOf(TdApi.UserStatusOnline.class, cache.getUser(5).orElseThrow().status);
+        assertEquals(11, cache.getSupergroup(9).orElseThrow().memberCount);
+    }
+
+    @Test
+    void oldestObjectsAreEvicted() {
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(1)));
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(2)));
+        cache.onUpdate(new TdApi.UpdateNewChat(chat(3)));
+
+        assertTrue(cache.getChat(1).isEmpty());
+        assertTrue(cache.getChat(3).isPresent());
+
+        TdApi.Chat fetched = chat(1);
+        fetched.title = "fetched";
+        cache.onResult(fetched);
+        cache.onResult(chat(1));
+        assertEquals("fetched", cache.getChat(1).orElseThrow().title);
+        assertTrue(cache.getChat(2).isEmpty());
+
+        TelegramObjectCache.Region<?> chats = cache.regions().get(0);
+        assertEquals("chats", chats.name());
+        assertEquals(2, chats.size());
+        assertEquals(2, chats.hits());
+        assertEquals(2, chats.misses());
+        assertEquals(List.of("chats", "users", "supergroups"),
+                cache.regions().stream().map(TelegramObjectCache.Region::name).toList());
+    }
+
+    private static TdApi.Chat chat(long id) {
+        var chat = new TdApi.Chat();
+        chat.id = id;
+        chat.title = "Chat " + id;
+        chat.positions = new TdApi.ChatPosition[0];
+        return chat;
+    }
+
+}
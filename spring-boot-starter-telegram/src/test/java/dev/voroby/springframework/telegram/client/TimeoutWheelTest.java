@@ -0,0 +1,64 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutWheelTest {
+
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel(1, TimeUnit.MILLISECONDS, 8);
+
+    @Test
+    void expire() throws InterruptedException {
+        var expired = new CountDownLatch(1);
+        var timeout = new TimeoutWheel.Timeout() {
+            @Override
+            void expire() {
+                expired.countDown();
+            }
+        };
+        long start = System.nanoTime();
+        timeoutWheel.schedule(timeout, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertFalse(timeout.cancel()); // already expired
+    }
+
+    @Test
+    void expireAfterSeveralRounds() throws InterruptedException {
+        var expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timeoutWheel.schedule(new TimeoutWheel.Timeout() {
+            @Override
+            void expire() {
+                expired.countDown();
+            }
+        }, TimeUnit.MILLISECONDS.toNanos(50)); // wheel of 8 ticks by 1 ms
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void cancel() throws InterruptedException {
+        var expirations = new AtomicInteger();
+        var timeout = new TimeoutWheel.Timeout() {
+            @Override
+            void expire() {
+                expirations.incrementAndGet();
+            }
+        };
+        timeoutWheel.schedule(timeout, TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel()); // only once
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(0, expirations.get());
+    }
+
+}
@@ -0,0 +1,187 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.updates.BatchUpdateListener;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure.Overflow;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Mode.PLATFORM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateBatchTest {
+
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel(1, TimeUnit.MILLISECONDS, 64);
+
+    @Test
+    void batchPerReceiveCycle() {
+        var batches = new CopyOnWriteArrayList<List<Long>>();
+        var coreHandler = coreHandler(new ReadInboxListener(batches, 3, Duration.ZERO));
+
+        for (int i = 1; i <= 5; i++) {
+            coreHandler.onResult(new TdApi.UpdateChatReadInbox(i, 0, 0));
+        }
+        coreHandler.onResult(new TdApi.UpdateNewChat());
+        coreHandler.onReceiveCycleEnd();
+        coreHandler.onReceiveCycleEnd();
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L)), batches);
+    }
+
+    @Test
+    void batchPerTimeWindow() throws InterruptedException {
+        var batches = new CopyOnWriteArrayList<List<Long>>();
+        var handled = new CountDownLatch(1);
+        var coreHandler = coreHandler(new ReadInboxListener(batches, 100, Duration.ofMillis(50)) {
+            @Override
+            public void handleNotifications(List<TdApi.UpdateChatReadInbox> notifications) {
+                super.handleNotifications(notifications);
+                handled.countDown();
+            }
+        });
+
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 0));
+        coreHandler.onReceiveCycleEnd();
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(2, 0, 0));
+        coreHandler.onReceiveCycleEnd();
+        assertTrue(batches.isEmpty());
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1L, 2L)), batches);
+    }
+
+    @Test
+    void slowWindowListenerDoesNotStallTheWheel() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var handlerThread = new CopyOnWriteArrayList<String>();
+        var coreHandler = coreHandler(new ReadInboxListener(new CopyOnWriteArrayList<>(), 100, Duration.ofMillis(10)) {
+            @Override
+            public void handleNotifications(List<TdApi.UpdateChatReadInbox> notifications) {
+                handlerThread.add(Thread.currentThread().getName());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        var deadline = new CountDownLatch(1);
+
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 0));
+        coreHandler.onReceiveCycleEnd();
+        TimeUnit.MILLISECONDS.sleep(50);
+        timeoutWheel.schedule(new TimeoutWheel.Timeout() {
+            @Override
+            void expire() {
+                deadline.countDown();
+            }
+        }, TimeUnit.MILLISECONDS.toNanos(10));
+
+        try {
+            assertTrue(deadline.await(5, TimeUnit.SECONDS));
+            assertEquals(1, handlerThread.size());
+            assertTrue(handlerThread.get(0).startsWith("TDLib timer dispatcher"), handlerThread.get(0));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void slowListenerDropsOldestBatches() throws InterruptedException {
+        var dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 1, 1,
+                new Backpressure(1, Overflow.DROP_OLDEST, null)));
+        var batches = new CopyOnWriteArrayList<List<Long>>();
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var coreHandler = CoreUpdateHandler.builder(List.of(), obj -> {})
+                .batchNotifications(List.of(new ReadInboxListener(batches, 100, Duration.ZERO) {
+                    @Override
+                    public void handleNotifications(List<TdApi.UpdateChatReadInbox> notifications) {
+                        super.handleNotifications(notifications);
+                        blocked.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }))
+                .dispatcher(dispatcher)
+                .timeoutWheel(timeoutWheel)
+                .build();
+
+        try {
+            coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 0));
+            coreHandler.onReceiveCycleEnd();
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            for (long chatId = 2; chatId <= 4; chatId++) {
+                coreHandler.onResult(new TdApi.UpdateChatReadInbox(chatId, 0, 0));
+                coreHandler.onReceiveCycleEnd();
+            }
+            // the queue of the default handler is the first one
+            UpdateQueue<?> queue = dispatcher.queues().get(1);
+            assertEquals(2, queue.dropped());
+            release.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.depth() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            assertEquals(List.of(List.of(1L), List.of(4L)), batches);
+        } finally {
+            release.countDown();
+            dispatcher.close();
+        }
+    }
+
+    private CoreUpdateHandler coreHandler(BatchUpdateListener<?> listener) {
+        return CoreUpdateHandler.builder(List.of(), obj -> {})
+                .batchNotifications(List.of(listener))
+                .timeoutWheel(timeoutWheel)
+                .build();
+    }
+
+    private static class ReadInboxListener implements BatchUpdateListener<TdApi.UpdateChatReadInbox> {
+
+        private final List<List<Long>> batches;
+
+        private final int maxBatchSize;
+
+        private final Duration maxBatchDelay;
+
+        ReadInboxListener(List<List<Long>> batches, int maxBatchSize, Duration maxBatchDelay) {
+            this.batches = batches;
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelay = maxBatchDelay;
+        }
+
+        @Override
+        public void handleNotifications(List<TdApi.UpdateChatReadInbox> notifications) {
+            batches.add(notifications.stream().map(update -> update.chatId).toList());
+        }
+
+        @Override
+        public Class<TdApi.UpdateChatReadInbox> notificationType() {
+            return TdApi.UpdateChatReadInbox.class;
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public Duration maxBatchDelay() {
+            return maxBatchDelay;
+        }
+    }
+
+}
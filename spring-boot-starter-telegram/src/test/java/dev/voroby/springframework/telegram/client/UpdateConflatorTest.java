@@ -0,0 +1,148 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.client.updates.UpdateNotificationListener;
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateConflatorTest {
+
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel(1, TimeUnit.MILLISECONDS, 64);
+
+    @Test
+    void disabledByDefault() {
+        assertNull(UpdateConflator.create(null, timeoutWheel));
+        assertNull(UpdateConflator.create(new TelegramProperties.Conflation(false, null, null), timeoutWheel));
+    }
+
+    @Test
+    void onlyConfiguredTypesAreConflated() {
+        var conflator = UpdateConflator.create(
+                new TelegramProperties.Conflation(true, null, List.of("UpdateChatReadInbox")), timeoutWheel);
+        Consumer<TdApi.Object> listener = update -> {};
+
+        assertSame(listener, conflator.conflate(TdApi.UpdateChatTitle.class, listener));
+        assertNotSame(listener, conflator.conflate(TdApi.UpdateChatReadInbox.class, listener));
+    }
+
+    @Test
+    void newestUpdatePerKeyIsPassedOncePerInterval() throws InterruptedException {
+        var conflator = UpdateConflator.create(
+                new TelegramProperties.Conflation(true, Duration.ofMillis(200), null), timeoutWheel);
+        var unread = new CopyOnWriteArrayList<String>();
+        var flushed = new CountDownLatch(3);
+        var coreHandler = CoreUpdateHandler.builder(List.of(readInboxListener(update -> {
+            unread.add(update.chatId + ":" + update.unreadCount);
+            flushed.countDown();
+        })), obj -> {}).conflator(conflator).build();
+
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 1));
+        for (int i = 2; i <= 5; i++) {
+            coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, i));
+            coreHandler.onResult(new TdApi.UpdateChatReadInbox(2, 0, i * 10));
+        }
+        assertEquals(List.of("1:1"), unread);
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("1:1", "1:5", "2:50"), unread);
+        assertEquals(6, conflator.conflated());
+    }
+
+    @Test
+    void positionsInDifferentChatListsAreKeptApart() throws InterruptedException {
+        var conflator = UpdateConflator.create(
+                new TelegramProperties.Conflation(true, Duration.ofMillis(200), null), timeoutWheel);
+        var orders = new CopyOnWriteArrayList<Long>();
+        var flushed = new CountDownLatch(5);
+        var coreHandler = CoreUpdateHandler.builder(List.of(new UpdateNotificationListener<TdApi.UpdateChatPosition>() {
+            @Override
+            public void handleNotification(TdApi.UpdateChatPosition notification) {
+                orders.add(notification.position.order);
+                flushed.countDown();
+            }
+
+            @Override
+            public Class<TdApi.UpdateChatPosition> notificationType() {
+                return TdApi.UpdateChatPosition.class;
+            }
+        }), obj -> {}).conflator(conflator).build();
+
+        coreHandler.onResult(chatPosition(new TdApi.ChatListMain(), 1));
+        coreHandler.onResult(chatPosition(new TdApi.ChatListMain(), 2));
+        coreHandler.onResult(chatPosition(new TdApi.ChatListArchive(), 3));
+        coreHandler.onResult(chatPosition(new TdApi.ChatListFolder(1), 4));
+        coreHandler.onResult(chatPosition(new TdApi.ChatListFolder(2), 5));
+        coreHandler.onResult(chatPosition(new TdApi.ChatListFolder(1), 6));
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L, 3L, 6L, 5L), orders);
+        assertEquals(1, conflator.conflated());
+    }
+
+    @Test
+    void slowListenerDoesNotStallTheWheel() throws InterruptedException {
+        var conflator = UpdateConflator.create(
+                new TelegramProperties.Conflation(true, Duration.ofMillis(10), null), timeoutWheel);
+        var release = new CountDownLatch(1);
+        var handlerThreads = new CopyOnWriteArrayList<String>();
+        var flushed = new CountDownLatch(2);
+        var coreHandler = CoreUpdateHandler.builder(List.of(readInboxListener(update -> {
+            handlerThreads.add(Thread.currentThread().getName());
+            flushed.countDown();
+            if (flushed.getCount() == 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        })), obj -> {}).conflator(conflator).build();
+
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 1));
+        coreHandler.onResult(new TdApi.UpdateChatReadInbox(1, 0, 2));
+        var deadline = new CountDownLatch(1);
+
+        try {
+            assertTrue(flushed.await(5, TimeUnit.SECONDS));
+            timeoutWheel.schedule(new TimeoutWheel.Timeout() {
+                @Override
+                void expire() {
+                    deadline.countDown();
+                }
+            }, TimeUnit.MILLISECONDS.toNanos(10));
+            assertTrue(deadline.await(5, TimeUnit.SECONDS));
+            assertTrue(handlerThreads.get(1).startsWith("TDLib timer dispatcher"), handlerThreads.get(1));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private TdApi.UpdateChatPosition chatPosition(TdApi.ChatList list, long order) {
+        return new TdApi.UpdateChatPosition(1, new TdApi.ChatPosition(list, order, false));
+    }
+
+    private UpdateNotificationListener<TdApi.UpdateChatReadInbox> readInboxListener(
+            Consumer<TdApi.UpdateChatReadInbox> consumer) {
+        return new UpdateNotificationListener<>() {
+            @Override
+            public void handleNotification(TdApi.UpdateChatReadInbox notification) {
+                consumer.accept(notification);
+            }
+
+            @Override
+            public Class<TdApi.UpdateChatReadInbox> notificationType() {
+                return TdApi.UpdateChatReadInbox.class;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,238 @@
+package dev.voroby.springframework.telegram.client;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure;
+import dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Backpressure.Overflow;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Mode.CALLER;
+import static dev.voroby.springframework.telegram.properties.TelegramProperties.Dispatch.Mode.PLATFORM;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateDispatcherTest {
+
+    private UpdateDispatcher dispatcher;
+
+    @AfterEach
+    void close() {
+        dispatcher.close();
+    }
+
+    @Test
+    void callerThread() {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(CALLER, 0, 0, null));
+        var handledBy = new ArrayList<Thread>();
+        dispatcher.queue("test", TdApi.UpdateNewChat.class, update -> handledBy.add(Thread.currentThread()))
+                .accept(new TdApi.UpdateNewChat());
+        assertEquals(List.of(Thread.currentThread()), handledBy);
+        assertTrue(dispatcher.queues().isEmpty());
+    }
+
+    @Test
+    void keepOrderOfChatUpdates() throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 4, 8, null));
+        int chats = 16, updatesPerChat = 500;
+        var received = new CountDownLatch(chats * updatesPerChat);
+        Map<Long, List<Long>> sequences = new ConcurrentHashMap<>();
+        Consumer<TdApi.Object> queue = dispatcher.queue("test", TdApi.UpdateChatReadInbox.class, update -> {
+            var readInbox = (TdApi.UpdateChatReadInbox) update;
+            sequences.computeIfAbsent(readInbox.chatId, id -> new ArrayList<>()).add(readInbox.lastReadInboxMessageId);
+            received.countDown();
+        });
+        for (int i = 0; i < updatesPerChat; i++) {
+            for (long chatId = 0; chatId < chats; chatId++) {
+                queue.accept(new TdApi.UpdateChatReadInbox(chatId, i, 0));
+            }
+        }
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        sequences.values().forEach(sequence -> {
+            for (int i = 0; i < updatesPerChat; i++) {
+                assertEquals(i, sequence.get(i));
+            }
+        });
+    }
+
+    @Test
+    void slowChatDoesNotBlockOthers() throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 2, 64, null));
+        var release = new CountDownLatch(1);
+        var otherChatHandled = new CountDownLatch(1);
+        Consumer<TdApi.Object> queue = dispatcher.queue("test", TdApi.UpdateChatTitle.class, update -> {
+            if (((TdApi.UpdateChatTitle) update).chatId == 1) {
+                await(release);
+            } else {
+                otherChatHandled.countDown();
+            }
+        });
+        queue.accept(new TdApi.UpdateChatTitle(1, "slow"));
+        queue.accept(new TdApi.UpdateChatTitle(2, "fast"));
+
+        assertTrue(otherChatHandled.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void dropNewest() throws InterruptedException {
+        var titles = overflow(Overflow.DROP_NEWEST);
+        assertTitles(List.of("first", "second", "third"), titles);
+        assertEquals(2, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void dropOldest() throws InterruptedException {
+        var titles = overflow(Overflow.DROP_OLDEST);
+        assertTitles(List.of("first", "fourth", "fifth"), titles);
+        assertEquals(2, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void conflate() throws InterruptedException {
+        var titles = overflow(Overflow.CONFLATE);
+        assertTitles(List.of("first", "second", "fifth"), titles);
+        assertEquals(2, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void block() throws InterruptedException {
+        var titles = overflow(Overflow.BLOCK);
+        assertTitles(List.of("first", "second", "third", "fourth", "fifth"), titles);
+        assertEquals(0, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void blockWaitsBoundedTime() throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 1, 1,
+                new Backpressure(1, Overflow.BLOCK, null)));
+        var release = new CountDownLatch(1);
+        Consumer<TdApi.Object> queue = dispatcher.queue("test", TdApi.UpdateChatTitle.class, update -> await(release));
+        queue.accept(new TdApi.UpdateChatTitle(1, "first"));
+
+        long startedAt = System.nanoTime();
+        queue.accept(new TdApi.UpdateChatTitle(2, "second"));
+        release.countDown();
+
+        assertTrue(System.nanoTime() - startedAt >= UpdateQueue.MAX_BLOCK_NANOS);
+        assertEquals(1, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void conflateKeepsUpdateTypesApart() throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 1, 1,
+                new Backpressure(2, Overflow.CONFLATE, null)));
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var handled = new CopyOnWriteArrayList<TdApi.Object>();
+        Consumer<TdApi.Object> queue = dispatcher.queue("default", TdApi.Object.class, update -> {
+            if (handled.isEmpty()) {
+                blocked.countDown();
+                await(release);
+            }
+            handled.add(update);
+        });
+        queue.accept(new TdApi.UpdateOption());
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        queue.accept(new TdApi.UpdateChatTitle(5, "title"));
+        queue.accept(new TdApi.UpdateChatReadInbox(5, 0, 1));
+        queue.accept(new TdApi.UpdateChatTitle(5, "newer title"));
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handled.size() < 2 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertEquals(2, handled.size());
+        assertEquals("newer title", ((TdApi.UpdateChatTitle) handled.get(1)).title);
+        assertEquals(2, dispatcher.queues().get(0).dropped());
+    }
+
+    @Test
+    void dropOldestByDefault() throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 1, 1,
+                new Backpressure(1, null, null)));
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Consumer<TdApi.Object> queue = dispatcher.queue("test", TdApi.UpdateChatTitle.class, update -> {
+            blocked.countDown();
+            await(release);
+        });
+        queue.accept(new TdApi.UpdateChatTitle(1, "first"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        queue.accept(new TdApi.UpdateChatTitle(2, "second"));
+        queue.accept(new TdApi.UpdateChatTitle(3, "third"));
+        release.countDown();
+
+        assertEquals(1, dispatcher.queues().get(0).dropped());
+    }
+
+    /*
+     * The first update blocks the listener, so the queue of capacity 3 is full with "first", "second" and "third"
+     */
+    private List<String> overflow(Overflow overflow) throws InterruptedException {
+        dispatcher = UpdateDispatcher.create(new TelegramProperties.Dispatch(PLATFORM, 1, 1,
+                new Backpressure(3, Overflow.BLOCK, Map.of("UpdateChatTitle", overflow))));
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var titles = new CopyOnWriteArrayList<String>();
+        Consumer<TdApi.Object> queue = dispatcher.queue("test", TdApi.UpdateChatTitle.class, update -> {
+            var chatTitle = (TdApi.UpdateChatTitle) update;
+            if (chatTitle.title.equals("first")) {
+                blocked.countDown();
+                await(release);
+            }
+            titles.add(chatTitle.title);
+        });
+        queue.accept(new TdApi.UpdateChatTitle(1, "first"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        queue.accept(new TdApi.UpdateChatTitle(2, "second"));
+        queue.accept(new TdApi.UpdateChatTitle(3, "third"));
+        var tdlibThread = new Thread(() -> {
+            queue.accept(new TdApi.UpdateChatTitle(4, "fourth"));
+            queue.accept(new TdApi.UpdateChatTitle(3, "fifth"));
+        });
+        tdlibThread.start();
+        if (overflow == Overflow.BLOCK) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertTrue(tdlibThread.isAlive());
+            assertEquals(3, dispatcher.queues().get(0).depth());
+        } else {
+            tdlibThread.join(5000);
+        }
+        release.countDown();
+        tdlibThread.join(5000);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.queues().get(0).depth() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return titles;
+    }
+
+    /*
+     * Updates of different chats may be handled in any order
+     */
+    private static void assertTitles(List<String> expected, List<String> titles) {
+        assertEquals(expected.size(), titles.size(), titles::toString);
+        assertEquals(Set.copyOf(expected), Set.copyOf(titles));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
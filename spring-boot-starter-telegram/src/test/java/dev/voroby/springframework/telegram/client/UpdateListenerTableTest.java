@@ -0,0 +1,35 @@
+package dev.voroby.springframework.telegram.client;
+
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UpdateListenerTableTest {
+
+    @Test
+    void getListenersOfAllKeys() {
+        int size = 1000;
+        @SuppressWarnings("unchecked")
+        Consumer<TdApi.Object>[] listeners = new Consumer[size];
+        var builder = UpdateListenerTable.builder();
+        for (int i = 0; i < size; i++) {
+            listeners[i] = update -> {};
+            builder.add(constructor(i), listeners[i]);
+        }
+        var table = builder.build();
+
+        Consumer<TdApi.Object> defaultListener = update -> {};
+        for (int i = 0; i < size; i++) {
+            assertSame(listeners[i], table.get(constructor(i), defaultListener));
+        }
+        assertSame(defaultListener, table.get(constructor(size), defaultListener));
+    }
+
+    private static int constructor(int i) {
+        return i % 2 == 0 ? -i * 7919 : i << 16;
+    }
+
+}
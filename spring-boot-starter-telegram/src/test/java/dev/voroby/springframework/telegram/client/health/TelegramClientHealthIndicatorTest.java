@@ -0,0 +1,92 @@
+package dev.voroby.springframework.telegram.client.health;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.TelegramClientStatus;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationStateImpl;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelegramClientHealthIndicatorTest {
+
+    private final TelegramClient telegramClient = mock(TelegramClient.class);
+
+    private final ClientAuthorizationStateImpl authorizationState = mock(ClientAuthorizationStateImpl.class);
+
+    private final TelegramClientHealthIndicator healthIndicator =
+            new TelegramClientHealthIndicator(telegramClient, authorizationState);
+
+    @BeforeEach
+    void setUp() {
+        when(telegramClient.getStatus()).thenReturn(
+                new TelegramClientStatus(true, 3, Duration.ofSeconds(2), new TdApi.ConnectionStateReady()));
+    }
+
+    @Test
+    void upWhenAuthorized() {
+        when(authorizationState.haveAuthorization()).thenReturn(true);
+        when(authorizationState.authorizationState()).thenReturn(new TdApi.AuthorizationStateReady());
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(Map.of(
+                "authorizationState", "AuthorizationStateReady",
+                "receiverAlive", true,
+                "pendingQueries", 3,
+                "sinceLastUpdate", "PT2S",
+                "connectionState", "ConnectionStateReady"
+        ), health.getDetails());
+    }
+
+    @Test
+    void outOfServiceWhileNotAuthorized() {
+        when(authorizationState.authorizationState()).thenReturn(new TdApi.AuthorizationStateWaitCode());
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals("AuthorizationStateWaitCode", health.getDetails().get("authorizationState"));
+    }
+
+    @Test
+    void downWhenReceiverStoppedOrClosed() {
+        when(authorizationState.haveAuthorization()).thenReturn(true);
+        when(telegramClient.getStatus()).thenReturn(new TelegramClientStatus(false, 0, null, null));
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("Unknown", health.getDetails().get("connectionState"));
+        assertFalse(health.getDetails().containsKey("sinceLastUpdate"));
+
+        when(telegramClient.getStatus()).thenReturn(new TelegramClientStatus(true, 0, null, null));
+        when(authorizationState.isStateClosed()).thenReturn(true);
+        assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    void infoContributesClientDetails() {
+        when(authorizationState.authorizationState()).thenReturn(new TdApi.AuthorizationStateReady());
+        var builder = new Info.Builder();
+
+        new TelegramClientInfoContributor(telegramClient, authorizationState).contribute(builder);
+
+        @SuppressWarnings("unchecked")
+        var details = (Map<String, Object>) builder.build().getDetails().get("telegram");
+        assertEquals("AuthorizationStateReady", details.get("authorizationState"));
+        assertEquals(3, details.get("pendingQueries"));
+    }
+
+}
@@ -0,0 +1,76 @@
+package dev.voroby.springframework.telegram.client.metrics;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MicrometerClientObserverTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MicrometerClientObserver observer = new MicrometerClientObserver(registry);
+
+    @Test
+    void recordRequests() {
+        var getChat = new TdApi.GetChat(1);
+        observer.onResult(getChat, new TdApi.Chat(), TimeUnit.MILLISECONDS.toNanos(2));
+        observer.onResult(getChat, new TdApi.Error(400, "CHAT_NOT_FOUND"), TimeUnit.MILLISECONDS.toNanos(3));
+        observer.onResult(getChat, new TdApi.Error(400, "CHAT_NOT_FOUND"), TimeUnit.MILLISECONDS.toNanos(3));
+        observer.onTimeout(getChat, TimeUnit.SECONDS.toNanos(30));
+
+        var success = registry.get("telegram.client.requests").tags("function", "GetChat", "outcome", "success").timer();
+        assertEquals(1, success.count());
+        assertEquals(2, success.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(2, registry.get("telegram.client.requests").tags("outcome", "error").timer().count());
+        assertEquals(1, registry.get("telegram.client.requests").tags("outcome", "timeout").timer().count());
+        assertEquals(2, registry.get("telegram.client.errors").tag("code", "400").counter().count());
+    }
+
+    @Test
+    void countUpdates() {
+        observer.onUpdate(new TdApi.UpdateNewChat());
+        observer.onUpdate(new TdApi.UpdateNewChat());
+        observer.onUpdate(new TdApi.UpdateChatTitle());
+
+        assertEquals(2, registry.get("telegram.client.updates").tag("type", "UpdateNewChat").counter().count());
+        assertEquals(1, registry.get("telegram.client.updates").tag("type", "UpdateChatTitle").counter().count());
+    }
+
+    @Test
+    void boundClientsAreTaggedApart() {
+        var first = mock(TelegramClient.class);
+        var second = mock(TelegramClient.class);
+        when(first.getPendingQueryCount()).thenReturn(3);
+        when(second.getPendingQueryCount()).thenReturn(5);
+
+        observer.bind(first);
+        observer.bind(second);
+
+        assertEquals(3, registry.get("telegram.client.requests.pending").tag("client", "0").gauge().value());
+        assertEquals(5, registry.get("telegram.client.requests.pending").tag("client", "1").gauge().value());
+    }
+
+    @Test
+    void metersAreRegisteredOncePerType() {
+        var getChat = new TdApi.GetChat(1);
+        observer.onResult(getChat, new TdApi.Chat(), 1000);
+        observer.onUpdate(new TdApi.UpdateNewChat());
+        int meters = registry.getMeters().size();
+
+        for (int i = 0; i < 100; i++) {
+            observer.onResult(getChat, new TdApi.Chat(), 1000);
+            observer.onUpdate(new TdApi.UpdateNewChat());
+        }
+
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(101, registry.get("telegram.client.updates").tag("type", "UpdateNewChat").counter().count());
+    }
+
+}
@@ -9,6 +9,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
+import java.util.concurrent.CompletableFuture;
+
 @Configuration
 public class TelegramRunnersConsumerConfig {
 
@@ -27,11 +29,22 @@ public class TelegramRunnersConsumerConfig {
         return TelegramRunnersConsumerTest.third;
     }
 
+    @Bean @Order(3)
+    public TelegramRunner fourthRunner() {
+        return TelegramRunnersConsumerTest.parallel();
+    }
+
+    @Bean @Order(3)
+    public TelegramRunner fifthRunner() {
+        return TelegramRunnersConsumerTest.parallel();
+    }
+
     @Bean
     public TelegramRunnersConsumer telegramRunnersConsumer(ApplicationArguments applicationArguments,
                                                            ApplicationContext applicationContext) {
         var authorizationState = Mockito.mock(ClientAuthorizationStateImpl.class);
         Mockito.when(authorizationState.haveAuthorization()).thenReturn(true);
+        Mockito.when(authorizationState.authorizationReady()).thenReturn(CompletableFuture.completedFuture(null));
         return new TelegramRunnersConsumerImpl(authorizationState, applicationArguments, applicationContext);
     }
 
@@ -1,22 +1,37 @@
 package dev.voroby.springframework.telegram.client.runner;
 
 import dev.voroby.springframework.telegram.TelegramRunner;
+import dev.voroby.springframework.telegram.client.updates.ClientAuthorizationStateImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ContextConfiguration(classes = TelegramRunnersConsumerConfig.class)
 public class TelegramRunnersConsumerTest {
 
-    private static final List<Integer> nums = new ArrayList<>();
+    private static final List<Integer> nums = Collections.synchronizedList(new ArrayList<>());
+
+    private static final CyclicBarrier sameOrder = new CyclicBarrier(2);
 
     static TelegramRunner first = args -> nums.add(1);
 
@@ -24,6 +39,16 @@ public class TelegramRunnersConsumerTest {
 
     static TelegramRunner third = args -> nums.add(3);
 
+    /*
+     * Both runners of the same order must run at once to pass the barrier
+     */
+    static TelegramRunner parallel() {
+        return args -> {
+            sameOrder.await(5, TimeUnit.SECONDS);
+            nums.add(4);
+        };
+    }
+
     @Autowired
     private List<TelegramRunner> telegramRunners;
 
@@ -38,7 +63,24 @@ public class TelegramRunnersConsumerTest {
     @RepeatedTest(5)
     void invokeTelegramRunnersConsumer() {
         telegramRunnersConsumer.accept(telegramRunners);
-        List<Integer> expectedList = List.of(1, 2, 3);
+        List<Integer> expectedList = List.of(1, 2, 3, 4, 4);
         assertEquals(expectedList, nums);
     }
+
+    @Test
+    void closedContextReleasesRunnersAwaitingAuthorization() throws Exception {
+        var authorizationState = mock(ClientAuthorizationStateImpl.class);
+        when(authorizationState.authorizationReady()).thenReturn(new CompletableFuture<>());
+        var context = mock(ApplicationContext.class);
+        var consumer = new TelegramRunnersConsumerImpl(authorizationState, mock(ApplicationArguments.class), context);
+
+        var accepted = CompletableFuture.runAsync(() -> consumer.accept(List.of(first)));
+        consumer.onApplicationEvent(new ContextClosedEvent(mock(ApplicationContext.class)));
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertFalse(accepted.isDone());
+
+        consumer.onApplicationEvent(new ContextClosedEvent(context));
+        accepted.get(5, TimeUnit.SECONDS);
+        assertTrue(nums.isEmpty());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package dev.voroby.springframework.telegram.client.simulator;
+
+import dev.voroby.springframework.telegram.properties.TelegramProperties;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TdlibSimulatorTest {
+
+    @Test
+    void laggingReceiveLoopIsAnsweredWithTooManyRequests() throws Exception {
+        var simulator = new TdlibSimulator(
+                new TelegramProperties.Simulator(true, Duration.ZERO, Map.of(), 100_000, 10));
+        int clientId = simulator.createClient();
+        simulator.send(clientId, 1, new TdApi.SetTdlibParameters());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (simulator.backlog() < 1 << 16) {
+            assertTrue(System.nanoTime() < deadline, "backlog: " + simulator.backlog());
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        // answered inline, must not wait for the receive loop
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> simulator.send(clientId, 2, new TdApi.GetChat(7)));
+        TimeUnit.MILLISECONDS.sleep(50);
+        int backlog = simulator.backlog();
+        assertTrue(backlog <= (1 << 16) + 16, "backlog: " + backlog);
+
+        var clientIds = new int[1000];
+        var eventIds = new long[1000];
+        var objects = new TdApi.Object[1000];
+        TdApi.Object answer = null;
+        while (answer == null) {
+            int n = simulator.receive(clientIds, eventIds, objects, 1);
+            assertTrue(n > 0);
+            for (int i = 0; i < n; i++) {
+                if (eventIds[i] == 2) {
+                    answer = objects[i];
+                }
+            }
+        }
+        assertEquals(429, assertInstanceOf(TdApi.Error.class, answer).code);
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.voroby.springframework.telegram.client.templates;
+
+import dev.voroby.springframework.telegram.client.TelegramClient;
+import dev.voroby.springframework.telegram.client.templates.response.Response;
+import org.drinkless.tdlib.TdApi;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkRequestTest {
+
+    private final TelegramClient telegramClient = mock(TelegramClient.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void uncachedIdsArePipelinedByTheClient() {
+        var queries = ArgumentCaptor.forClass(List.class);
+        when(telegramClient.sendAll(queries.capture(), eq(2))).thenReturn(CompletableFuture.completedFuture(List.of(
+                new Response<>(null, new TdApi.Error(400, "CHAT_NOT_FOUND")),
+                new Response<>(chat(5), null))));
+
+        Map<Long, Response<TdApi.Chat>> responses = BulkRequest.<TdApi.Chat>send(telegramClient,
+                new long[]{1, 2, 5, 2}, 2, id -> id == 1 ? Optional.of(chat(1)) : Optional.empty(),
+                TdApi.GetChat::new).join();
+
+        assertEquals(List.of(2L, 5L), ((List<TdApi.GetChat>) queries.getValue()).stream()
+                .map(query -> query.chatId).toList());
+        assertEquals(List.of(1L, 2L, 5L), List.copyOf(responses.keySet()));
+        assertEquals(1, responses.get(1L).getObject().orElseThrow().id);
+        assertEquals(400, responses.get(2L).getError().orElseThrow().code);
+        assertEquals(5, responses.get(5L).getObject().orElseThrow().id);
+        assertThrows(UnsupportedOperationException.class, () -> responses.remove(1L));
+    }
+
+    @Test
+    void cachedIdsAreNotQueried() {
+        Map<Long, Response<TdApi.Chat>> responses = BulkRequest.<TdApi.Chat>send(telegramClient,
+                new long[]{3, 4}, 2, id -> Optional.of(chat(id)), TdApi.GetChat::new).join();
+
+        assertEquals(List.of(3L, 4L), List.copyOf(responses.keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> responses.remove(3L));
+        verify(telegramClient, never()).sendAll(anyList(), anyInt());
+    }
+
+    @Test
+    void emptyIdsAndInvalidWindow() {
+        Map<Long, Response<TdApi.Chat>> responses = BulkRequest.<TdApi.Chat>send(telegramClient, new long[0], 1,
+                id -> Optional.empty(), TdApi.GetChat::new).join();
+        assertTrue(responses.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> responses.put(1L, null));
+        assertThrows(IllegalArgumentException.class, () -> BulkRequest.<TdApi.Chat>send(telegramClient,
+                new long[]{1}, 0, id -> Optional.empty(), TdApi.GetChat::new));
+    }
+
+    private static TdApi.Chat chat(long id) {
+        var chat = new TdApi.Chat();
+        chat.id = id;
+        return chat;
+    }
+
+}
@@ -5,7 +5,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import static dev.voroby.springframework.telegram.client.updates.AuthorizationStateCache.*;
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ClientAuthorizationStateImplTest extends AbstractTest {
@@ -15,20 +16,17 @@ class ClientAuthorizationStateImplTest extends AbstractTest {
 
     @BeforeEach
     void clearCacheValues() {
-        codeInputToCheck = null;
-        passwordInputToCheck = null;
-        emailAddressInputToCheck = null;
-        waitAuthenticationCode.set(false);
-        waitAuthenticationPassword.set(false);
-        waitEmailAddress.set(false);
-        haveAuthorization.set(false);
-        stateClosed.set(false);
+        cache().code.cancel();
+        cache().password.cancel();
+        cache().emailAddress.cancel();
+        cache().haveAuthorization.set(false);
+        cache().stateClosed.set(false);
     }
 
     @Test
     void checkAuthenticationCode() {
         //setup flag that client waits authentication code
-        waitAuthenticationCode.set(true);
+        CompletableFuture<String> awaited = cache().code.await();
         assertTrue(clientAuthorizationState.isWaitAuthenticationCode());
 
         //check code
@@ -37,13 +35,13 @@ class ClientAuthorizationStateImplTest extends AbstractTest {
 
         //code accepted
         assertFalse(clientAuthorizationState.isWaitAuthenticationCode());
-        assertEquals(code, AuthorizationStateCache.codeInputToCheck);
+        assertEquals(code, awaited.getNow(null));
     }
 
     @Test
     void checkAuthenticationPassword() {
         //setup flag that client waits authentication password
-        waitAuthenticationPassword.set(true);
+        CompletableFuture<String> awaited = cache().password.await();
         assertTrue(clientAuthorizationState.isWaitAuthenticationPassword());
 
         //check password
@@ -52,13 +50,13 @@ class ClientAuthorizationStateImplTest extends AbstractTest {
 
         //password accepted
         assertFalse(clientAuthorizationState.isWaitAuthenticationPassword());
-        assertEquals(password, AuthorizationStateCache.passwordInputToCheck);
+        assertEquals(password, awaited.getNow(null));
     }
 
     @Test
     void checkEmailAddress() {
         //setup flag that client waits authentication email
-        waitEmailAddress.set(true);
+        CompletableFuture<String> awaited = cache().emailAddress.await();
         assertTrue(clientAuthorizationState.isWaitEmailAddress());
 
         //check email
@@ -67,7 +65,18 @@ class ClientAuthorizationStateImplTest extends AbstractTest {
 
         //email accepted
         assertFalse(clientAuthorizationState.isWaitEmailAddress());
-        assertEquals(email, emailAddressInputToCheck);
+        assertEquals(email, awaited.getNow(null));
+    }
+
+    @Test
+    void inputIsIgnoredUnlessAwaited() {
+        clientAuthorizationState.checkAuthenticationCode("code");
+        CompletableFuture<String> awaited = cache().code.await();
+        cache().code.cancel();
+        clientAuthorizationState.checkAuthenticationCode("code");
+
+        assertTrue(awaited.isCancelled());
+        assertFalse(clientAuthorizationState.isWaitAuthenticationCode());
     }
 
     @Test
@@ -79,4 +88,8 @@ class ClientAuthorizationStateImplTest extends AbstractTest {
         assertFalse(clientAuthorizationState.isStateClosed());
     }
 
-}
\ No newline at end of file
+    private AuthorizationStateCache cache() {
+        return ((ClientAuthorizationStateImpl) clientAuthorizationState).cache();
+    }
+
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,23 +65,31 @@ class UpdateAuthorizationStateTest extends AbstractTest {
                 handleAuthorizationStateWaitOtherDeviceConfirmation();
             }
             case TdApi.AuthorizationStateWaitCode.CONSTRUCTOR -> {
-                AuthorizationStateCache.codeInputToCheck = authCode;
                 updateAuthorizationNotification.handleNotification(updateAuthorizationState);
+                assertTrue(clientAuthorizationState.isWaitAuthenticationCode());
+                verifyTelegramClientNotInvoked();
+                clientAuthorizationState.checkAuthenticationCode(authCode);
                 verifyAuthorizationStateWaitCode();
             }
             case TdApi.AuthorizationStateWaitPassword.CONSTRUCTOR -> {
-                AuthorizationStateCache.passwordInputToCheck = twoStepPassword;
                 updateAuthorizationNotification.handleNotification(updateAuthorizationState);
+                assertTrue(clientAuthorizationState.isWaitAuthenticationPassword());
+                verifyTelegramClientNotInvoked();
+                clientAuthorizationState.checkAuthenticationPassword(twoStepPassword);
                 verifyAuthorizationStateWaitPassword();
             }
             case TdApi.AuthorizationStateWaitEmailAddress.CONSTRUCTOR -> {
-                AuthorizationStateCache.emailAddressInputToCheck = email;
                 updateAuthorizationNotification.handleNotification(updateAuthorizationState);
+                assertTrue(clientAuthorizationState.isWaitEmailAddress());
+                verifyTelegramClientNotInvoked();
+                clientAuthorizationState.checkEmailAddress(email);
                 verifyAuthorizationStateWaitEmailAddress();
             }
             case TdApi.AuthorizationStateWaitEmailCode.CONSTRUCTOR -> {
-                AuthorizationStateCache.codeInputToCheck = authCode;
                 updateAuthorizationNotification.handleNotification(updateAuthorizationState);
+                assertTrue(clientAuthorizationState.isWaitAuthenticationCode());
+                verifyTelegramClientNotInvoked();
+                clientAuthorizationState.checkAuthenticationCode(authCode);
                 verifyAuthorizationStateWaitEmailCode();
             }
             case TdApi.AuthorizationStateReady.CONSTRUCTOR -> {
@@ -99,6 +108,26 @@ class UpdateAuthorizationStateTest extends AbstractTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void wrongCodeIsAwaitedAgain() {
+        updateAuthorizationState.authorizationState = new TdApi.AuthorizationStateWaitCode();
+        updateAuthorizationNotification.handleNotification(updateAuthorizationState);
+        clientAuthorizationState.checkAuthenticationCode("wrong_code");
+
+        var handlerCaptor = ArgumentCaptor.forClass(QueryResultHandler.class);
+        verify(telegramClient).sendWithCallback(any(TdApi.CheckAuthenticationCode.class), handlerCaptor.capture());
+        assertFalse(clientAuthorizationState.isWaitAuthenticationCode());
+        handlerCaptor.getValue().onResult(null, new TdApi.Error(400, "PHONE_CODE_INVALID"));
+        assertTrue(clientAuthorizationState.isWaitAuthenticationCode());
+
+        clientAuthorizationState.checkAuthenticationCode(authCode);
+        var authCodeCaptor = ArgumentCaptor.forClass(TdApi.CheckAuthenticationCode.class);
+        verify(telegramClient, times(2)).sendWithCallback(authCodeCaptor.capture(), any(QueryResultHandler.class));
+        assertEquals(List.of("wrong_code", authCode),
+                authCodeCaptor.getAllValues().stream().map(checkCode -> checkCode.code).toList());
+    }
+
     @Test
     void notificationType() {
         assertEquals(TdApi.UpdateAuthorizationState.class, updateAuthorizationNotification.notificationType());
@@ -134,21 +163,21 @@ class UpdateAuthorizationStateTest extends AbstractTest {
         var authCodeCaptor = ArgumentCaptor.forClass(TdApi.CheckAuthenticationCode.class);
         verify(telegramClient).sendWithCallback(authCodeCaptor.capture(), any(QueryResultHandler.class));
         assertEquals(authCode, authCodeCaptor.getValue().code);
-        assertNull(AuthorizationStateCache.codeInputToCheck); // drop from cache after check
+        assertFalse(clientAuthorizationState.isWaitAuthenticationCode()); // input is accepted once
     }
 
     private void verifyAuthorizationStateWaitPassword() {
         var passwordCaptor = ArgumentCaptor.forClass(TdApi.CheckAuthenticationPassword.class);
         verify(telegramClient).sendWithCallback(passwordCaptor.capture(), any(QueryResultHandler.class));
         assertEquals(twoStepPassword, passwordCaptor.getValue().password);
-        assertNull(AuthorizationStateCache.passwordInputToCheck); // drop from cache after check
+        assertFalse(clientAuthorizationState.isWaitAuthenticationPassword()); // input is accepted once
     }
 
     private void verifyAuthorizationStateWaitEmailAddress() {
         var emailAddressCaptor = ArgumentCaptor.forClass(TdApi.SetAuthenticationEmailAddress.class);
         verify(telegramClient).sendWithCallback(emailAddressCaptor.capture(), any(QueryResultHandler.class));
         assertEquals(email, emailAddressCaptor.getValue().emailAddress);
-        assertNull(AuthorizationStateCache.emailAddressInputToCheck); // drop from cache after check
+        assertFalse(clientAuthorizationState.isWaitEmailAddress()); // input is accepted once
     }
 
     private void verifyAuthorizationStateWaitEmailCode() {
@@ -156,19 +185,24 @@ class UpdateAuthorizationStateTest extends AbstractTest {
         verify(telegramClient).sendWithCallback(codeFromEmailCaptor.capture(), any(QueryResultHandler.class));
         TdApi.EmailAddressAuthenticationCode emailCode = (TdApi.EmailAddressAuthenticationCode) codeFromEmailCaptor.getValue().code;
         assertEquals(authCode, emailCode.code);
-        assertNull(AuthorizationStateCache.codeInputToCheck); // drop from cache after check
+        assertFalse(clientAuthorizationState.isWaitAuthenticationCode()); // input is accepted once
     }
 
     private void verifyAuthorizationStateReady() {
-        assertTrue(AuthorizationStateCache.haveAuthorization.get());
+        assertTrue(cache().haveAuthorization.get());
+        assertTrue(clientAuthorizationState.authorizationReady().isDone());
     }
 
     private void verifyAuthorizationStateLoggingOutOrClosing() {
-        assertFalse(AuthorizationStateCache.haveAuthorization.get());
+        assertFalse(cache().haveAuthorization.get());
     }
 
     private void verifyAuthorizationStateClosed() {
         verifyTelegramClientNotInvoked();
-        assertTrue(AuthorizationStateCache.stateClosed.get());
+        assertTrue(cache().stateClosed.get());
+    }
+
+    private AuthorizationStateCache cache() {
+        return ((ClientAuthorizationStateImpl) clientAuthorizationState).cache();
     }
-}
\ No newline at end of file
+}
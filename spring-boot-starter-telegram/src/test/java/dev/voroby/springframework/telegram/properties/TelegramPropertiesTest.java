@@ -4,8 +4,14 @@ import dev.voroby.springframework.telegram.AbstractTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class TelegramPropertiesTest extends AbstractTest {
 
@@ -26,4 +32,33 @@ public class TelegramPropertiesTest extends AbstractTest {
         assertEquals(testSecret, secret);
     }
 
+    @Test
+    void getTimeouts() {
+        TelegramProperties.Timeouts timeouts = telegramProperties.timeouts();
+        assertEquals(Duration.ofSeconds(20), timeouts.defaultTimeout());
+        assertEquals(Duration.ofMinutes(1), timeouts.functions().get("GetChatHistory"));
+    }
+
+    @Test
+    void bindFromPrefix() {
+        var source = new MapConfigurationPropertySource(Map.of(
+                "second-account.api-id", "456",
+                "second-account.timeouts.default-timeout", "5s"));
+
+        TelegramProperties properties = new Binder(source).bind("second-account", TelegramProperties.class).get();
+
+        assertEquals(456, properties.apiId());
+        assertEquals(Duration.ofSeconds(5), properties.timeouts().defaultTimeout());
+    }
+
+    @Test
+    void constructorOfPreviousVersions() {
+        var properties = new TelegramProperties(false, "tdlib", "tdlib", "key", false, false, false, false,
+                123, "hash", "+0000", "en", "Desktop", "1.0", "1.0", 1, null);
+
+        assertEquals(123, properties.apiId());
+        assertNull(properties.timeouts());
+        assertNull(properties.lanes());
+    }
+
 }
\ No newline at end of file
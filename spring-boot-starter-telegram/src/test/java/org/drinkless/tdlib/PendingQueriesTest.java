@@ -0,0 +1,47 @@
+package org.drinkless.tdlib;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingQueriesTest {
+
+    @Test
+    void putAndRemove() {
+        var pendingQueries = new PendingQueries(1 << 12);
+        var random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            assertTrue(pendingQueries.put(id, "query-" + id));
+            ids.add(id);
+        }
+        assertEquals(3000, pendingQueries.size());
+
+        Collections.shuffle(ids, random);
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            assertEquals("query-" + id, pendingQueries.remove(id));
+            assertNull(pendingQueries.remove(id));
+            assertEquals(ids.size() - i - 1, pendingQueries.size());
+        }
+    }
+
+    @Test
+    void boundedCapacity() {
+        var pendingQueries = new PendingQueries(32);
+        for (long id = 1; id <= 32; id++) {
+            assertTrue(pendingQueries.put(id, id));
+        }
+        assertFalse(pendingQueries.put(33, 33L));
+        assertEquals(32, pendingQueries.size());
+
+        assertEquals(1L, pendingQueries.remove(1));
+        assertTrue(pendingQueries.put(49, 49L));
+    }
+
+}